@@ -0,0 +1,63 @@
+package com.shinezhang.android.loading.benchmark;
+
+import com.shinezhang.android.loading.core.LookupTable;
+import com.shinezhang.android.loading.core.ShapeSequence;
+import com.shinezhang.android.loading.core.ShapeTimeline;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by ShineZhang on 2017/3/17.
+ *
+ * <p>the cost of the shared caches, a hit is what a new loading view pays with the same config,
+ * a miss is what it pays with a new size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheBenchmark {
+
+    /**
+     * more than the timelines kept by {@link ShapeTimeline}, so each obtain is a miss
+     */
+    private static final int MISS_WIDTH_COUNT                       = 64;
+
+    private final float[] mArrayStepRatio                           = new float[ShapeSequence.STEP_COUNT_PER_BOUNCE];
+    private int mWidthIndex;
+
+    @Setup
+    public void setup() {
+        ShapeSequence.computeStepRatios(1.2f, mArrayStepRatio);
+    }
+
+    @Benchmark
+    public ShapeTimeline obtainTimelineHit() {
+        return ShapeTimeline.obtain(150, 620, 6, 15, 1.2f, mArrayStepRatio);
+    }
+
+    @Benchmark
+    public ShapeTimeline obtainTimelineMiss() {
+        mWidthIndex = (mWidthIndex + 1) % MISS_WIDTH_COUNT;
+        int width = 100 + mWidthIndex * 2;
+        return ShapeTimeline.obtain(width, width * 4, 6, 15, 1.2f, mArrayStepRatio);
+    }
+
+    @Benchmark
+    public LookupTable obtainInterpolatorTableHit() {
+        return LookupTable.accelerate(1.2f);
+    }
+
+    @Benchmark
+    public float[] computeStepRatios() {
+        ShapeSequence.computeStepRatios(1.2f, mArrayStepRatio);
+        return mArrayStepRatio;
+    }
+}
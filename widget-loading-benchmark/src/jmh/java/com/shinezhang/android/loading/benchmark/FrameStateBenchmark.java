@@ -0,0 +1,64 @@
+package com.shinezhang.android.loading.benchmark;
+
+import com.shinezhang.android.loading.core.FrameStepper;
+import com.shinezhang.android.loading.core.ShapeSequence;
+import com.shinezhang.android.loading.core.ShapeTimeline;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by ShineZhang on 2017/3/17.
+ *
+ * <p>the per frame cost of the animation state, it is what the loading views run in each vsync.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FrameStateBenchmark {
+
+    private static final long FRAME_INTERVAL_NANOS                  = 16666667L;
+
+    private FrameStepper mFrameStepper;
+    private ShapeSequence mShapeSequence;
+    private ShapeTimeline mTimeline;
+    private long mFrameTimeNanos;
+
+    @Setup
+    public void setup() {
+        mFrameStepper = new FrameStepper(30000000L);
+        mShapeSequence = new ShapeSequence(7);
+
+        float[] arrayStepRatio = new float[ShapeSequence.STEP_COUNT_PER_BOUNCE];
+        ShapeSequence.computeStepRatios(1.2f, arrayStepRatio);
+        mTimeline = ShapeTimeline.obtain(150, 620, 6, 15, 1.2f, arrayStepRatio);
+    }
+
+    @Benchmark
+    public boolean advanceStepper() {
+        mFrameTimeNanos += FRAME_INTERVAL_NANOS;
+        return mFrameStepper.advance(mFrameTimeNanos);
+    }
+
+    @Benchmark
+    public void advanceShapeFrame(Blackhole blackhole) {
+        mFrameTimeNanos += FRAME_INTERVAL_NANOS;
+        mFrameStepper.advance(mFrameTimeNanos);
+
+        long frameIndex = mFrameStepper.getFrameIndex();
+        int stepIndex = ShapeSequence.getStepIndex(frameIndex);
+        blackhole.consume(mShapeSequence.getDrawIndex(frameIndex));
+        blackhole.consume(mTimeline.getShadowLeft(stepIndex));
+        blackhole.consume(mTimeline.getShadowRight(stepIndex));
+        blackhole.consume(mTimeline.getShapeTop(stepIndex));
+        blackhole.consume(mTimeline.getRatio(stepIndex));
+    }
+}
@@ -0,0 +1,82 @@
+package com.shinezhang.android.loading.benchmark;
+
+import com.shinezhang.android.loading.core.LookupTable;
+import com.shinezhang.android.loading.core.PathSink;
+import com.shinezhang.android.loading.core.PolygonGeometry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by ShineZhang on 2017/3/17.
+ *
+ * <p>the cost of the geometry, it is paid when the size or the config of the loading is changed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeometryBenchmark {
+
+    @Param({"3", "5", "8"})
+    public int mSideCount;
+
+    private final CountingPathSink mPathSink                        = new CountingPathSink();
+
+    @Benchmark
+    public float buildPolygon() {
+        mPathSink.mSum = 0f;
+        PolygonGeometry.build(mSideCount, 75f, mPathSink);
+        return mPathSink.mSum;
+    }
+
+    @Benchmark
+    public float sinByLookupTable() {
+        return LookupTable.sinDegrees(mSideCount * 17.5f);
+    }
+
+    @Benchmark
+    public float sinByMath() {
+        return (float) Math.sin(Math.toRadians(mSideCount * 17.5f));
+    }
+
+    @Benchmark
+    public LookupTable createLookupTable() {
+        final float factor = mSideCount * 0.4f;
+        return LookupTable.create(new LookupTable.Function() {
+            @Override
+            public float valueAt(float x) {
+                return (float) Math.pow(x, factor * 2d);
+            }
+        }, 0f, 1f, 256);
+    }
+
+    /**
+     * the sink only sums the points, so the building is not eliminated
+     */
+    private static final class CountingPathSink implements PathSink {
+
+        private float mSum;
+
+        @Override
+        public void moveTo(float x, float y) {
+            mSum += x + y;
+        }
+
+        @Override
+        public void lineTo(float x, float y) {
+            mSum += x + y;
+        }
+
+        @Override
+        public void close() {
+            mSum += 1f;
+        }
+    }
+}
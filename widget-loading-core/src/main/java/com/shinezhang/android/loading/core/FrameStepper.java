@@ -0,0 +1,93 @@
+package com.shinezhang.android.loading.core;
+
+/**
+ * Created by ShineZhang on 2017/3/17.
+ *
+ * <p>the step machine of the frame index, it counts the frame index from the elapsed frame time.
+ * <br/>the time between {@link #pause()} and the next frame is not counted,
+ * so the animation resumes with the same phase.
+ */
+public final class FrameStepper {
+
+    private long mFrameDurationNanos;
+    private long mElapsedNanos;
+    private long mLastFrameTimeNanos = -1L;
+    private long mCurFrameIndex;
+
+    /**
+     * create the stepper
+     * @param frameDurationNanos the duration of each frame index, it should be a positive number
+     */
+    public FrameStepper(long frameDurationNanos) {
+        setFrameDuration(frameDurationNanos);
+    }
+
+    /**
+     * set the duration of each frame index, the current frame index is kept
+     * @param frameDurationNanos the duration in nanoseconds, it should be a positive number
+     */
+    public void setFrameDuration(long frameDurationNanos) {
+        if (frameDurationNanos <= 0L) {
+            throw new IllegalArgumentException("frame duration should be a positive number");
+        }
+
+        if (frameDurationNanos == mFrameDurationNanos) {
+            return;
+        }
+
+        mFrameDurationNanos = frameDurationNanos;
+        mElapsedNanos = mCurFrameIndex * mFrameDurationNanos;
+    }
+
+    /**
+     * get the duration of each frame index
+     * @return the duration in nanoseconds
+     */
+    public long getFrameDuration() {
+        return mFrameDurationNanos;
+    }
+
+    /**
+     * get the current frame index
+     * @return the frame index, starts from 0
+     */
+    public long getFrameIndex() {
+        return mCurFrameIndex;
+    }
+
+    /**
+     * reset the frame index to 0
+     */
+    public void reset() {
+        mElapsedNanos = 0L;
+        mCurFrameIndex = 0L;
+        mLastFrameTimeNanos = -1L;
+    }
+
+    /**
+     * forget the last frame time, the time until the next frame is not counted
+     */
+    public void pause() {
+        mLastFrameTimeNanos = -1L;
+    }
+
+    /**
+     * advance by the frame time
+     * @param frameTimeNanos the frame time in nanoseconds, it should be monotonic
+     * @return true if the frame index is changed
+     */
+    public boolean advance(long frameTimeNanos) {
+        if (mLastFrameTimeNanos >= 0L && frameTimeNanos > mLastFrameTimeNanos) {
+            mElapsedNanos += frameTimeNanos - mLastFrameTimeNanos;
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+
+        long frameIndex = mElapsedNanos / mFrameDurationNanos;
+        if (frameIndex == mCurFrameIndex) {
+            return false;
+        }
+
+        mCurFrameIndex = frameIndex;
+        return true;
+    }
+}
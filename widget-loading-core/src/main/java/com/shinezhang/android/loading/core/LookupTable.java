@@ -0,0 +1,221 @@
+package com.shinezhang.android.loading.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Created by ShineZhang on 2017/3/16.
+ *
+ * <p>the immutable table of a function sampled in a range, the value between two samples is linear interpolated,
+ * so the loadings look up the trigonometric and interpolator values instead of computing them in drawing.
+ * <br/>the trigonometric tables and the interpolator tables are shared by all the loadings,
+ * see {@link #sinDegrees(float)}, {@link #cosDegrees(float)}, {@link #accelerate(float)} and {@link #decelerate(float)}.
+ */
+public final class LookupTable {
+
+    /**
+     * the sample count of the trigonometric tables in 360 degrees, the max error is about 1e-5,
+     * all the degrees in multiples of 0.5 are exact
+     */
+    private static final int TRIGONOMETRIC_RESOLUTION               = 720;
+
+    /**
+     * the sample count of the interpolator tables in [0, 1], all the multiples of 1/360 are exact
+     */
+    private static final int INTERPOLATOR_RESOLUTION                = 360;
+
+    /**
+     * the max count of the cached interpolator tables of each curve, the table evicted is still valid for the users
+     */
+    private static final int MAX_INTERPOLATOR_TABLE_COUNT           = 8;
+
+    private static final LookupTable SIN_TABLE                      = create(new Function() {
+
+        @Override
+        public float valueAt(float x) {
+            return snapUnit(Math.sin(Math.toRadians(x)));
+        }
+    }, 0f, 360f, TRIGONOMETRIC_RESOLUTION);
+
+    private static final LinkedHashMap<Float, LookupTable> sAccelerateTables = createTableCache();
+    private static final LinkedHashMap<Float, LookupTable> sDecelerateTables = createTableCache();
+
+    private final float[] mValues;
+    private final float mStart;
+    private final float mEnd;
+    private final float mSamplesPerUnit;
+
+    private LookupTable(float[] values, float start, float end) {
+        mValues = values;
+        mStart = start;
+        mEnd = end;
+        mSamplesPerUnit = (values.length - 1) / (end - start);
+    }
+
+    /**
+     * create a table of the function
+     * @param function the function to sample
+     * @param start the start of the range
+     * @param end the end of the range, it should be larger than start
+     * @param resolution the count of the segments in the range, the table holds resolution + 1 samples
+     * @return the table
+     */
+    public static LookupTable create(Function function, float start, float end, int resolution) {
+        if (function == null) {
+            throw new IllegalArgumentException("function can not be null");
+        }
+
+        if (end <= start) {
+            throw new IllegalArgumentException("end should be larger than start");
+        }
+
+        if (resolution <= 0) {
+            throw new IllegalArgumentException("resolution should be a positive number");
+        }
+
+        float[] values = new float[resolution + 1];
+        for (int i = 0; i <= resolution; i++) {
+            //compute the x of each sample from the start, so the error never accumulates
+            float x = (i == resolution) ? end : (start + (end - start) * i / resolution);
+            values[i] = function.valueAt(x);
+        }
+        return new LookupTable(values, start, end);
+    }
+
+    /**
+     * look up the value of x, the value between two samples is linear interpolated
+     * @param x the x in the range, the x out of the range is clamped
+     * @return the value
+     */
+    public float get(float x) {
+        if (x <= mStart) {
+            return mValues[0];
+        }
+
+        if (x >= mEnd) {
+            return mValues[mValues.length - 1];
+        }
+
+        float position = (x - mStart) * mSamplesPerUnit;
+        int index = (int) position;
+        float fraction = position - index;
+        if (fraction == 0f || index >= mValues.length - 1) {
+            return mValues[index];
+        }
+        return mValues[index] + (mValues[index + 1] - mValues[index]) * fraction;
+    }
+
+    /**
+     * look up the sin value
+     * @param degrees the angle in degrees, any value is allowed
+     * @return the sin value
+     */
+    public static float sinDegrees(float degrees) {
+        float normalized = degrees % 360f;
+        if (normalized < 0f) {
+            normalized += 360f;
+        }
+        return SIN_TABLE.get(normalized);
+    }
+
+    /**
+     * look up the cos value
+     * @param degrees the angle in degrees, any value is allowed
+     * @return the cos value
+     */
+    public static float cosDegrees(float degrees) {
+        return sinDegrees(degrees + 90f);
+    }
+
+    /**
+     * create the cache of the interpolator tables by the factor, the least recently used table is evicted
+     * @return the cache
+     */
+    private static LinkedHashMap<Float, LookupTable> createTableCache() {
+        return new LinkedHashMap<Float, LookupTable>(MAX_INTERPOLATOR_TABLE_COUNT, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Float, LookupTable> eldest) {
+                return size() > MAX_INTERPOLATOR_TABLE_COUNT;
+            }
+        };
+    }
+
+    /**
+     * get the shared table of the accelerate curve in [0, 1],
+     * it is the same as android.view.animation.AccelerateInterpolator
+     * @param factor the factor of the interpolator
+     * @return the table
+     */
+    public static LookupTable accelerate(final float factor) {
+        synchronized (sAccelerateTables) {
+            LookupTable table = sAccelerateTables.get(factor);
+            if (table == null) {
+                table = create(new Function() {
+
+                    @Override
+                    public float valueAt(float x) {
+                        if (factor == 1f) {
+                            return x * x;
+                        }
+                        return (float) Math.pow(x, factor * 2d);
+                    }
+                }, 0f, 1f, INTERPOLATOR_RESOLUTION);
+                sAccelerateTables.put(factor, table);
+            }
+            return table;
+        }
+    }
+
+    /**
+     * get the shared table of the decelerate curve in [0, 1],
+     * it is the same as android.view.animation.DecelerateInterpolator
+     * @param factor the factor of the interpolator
+     * @return the table
+     */
+    public static LookupTable decelerate(final float factor) {
+        synchronized (sDecelerateTables) {
+            LookupTable table = sDecelerateTables.get(factor);
+            if (table == null) {
+                table = create(new Function() {
+
+                    @Override
+                    public float valueAt(float x) {
+                        if (factor == 1f) {
+                            return 1f - (1f - x) * (1f - x);
+                        }
+                        return (float) (1f - Math.pow(1f - x, factor * 2d));
+                    }
+                }, 0f, 1f, INTERPOLATOR_RESOLUTION);
+                sDecelerateTables.put(factor, table);
+            }
+            return table;
+        }
+    }
+
+    /**
+     * remove the tiny error of sin and cos, e.g. cos(90) is exact 0
+     * @param value the sin or cos value
+     * @return the snapped value
+     */
+    private static float snapUnit(double value) {
+        double rounded = Math.rint(value);
+        if (Math.abs(value - rounded) < 1e-9d) {
+            return (float) rounded;
+        }
+        return (float) value;
+    }
+
+    /**
+     * the function to sample
+     */
+    public interface Function {
+
+        /**
+         * compute the value of x
+         * @param x the x in the range
+         * @return the value
+         */
+        float valueAt(float x);
+    }
+}
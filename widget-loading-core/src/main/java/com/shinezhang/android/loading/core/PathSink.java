@@ -0,0 +1,28 @@
+package com.shinezhang.android.loading.core;
+
+/**
+ * Created by ShineZhang on 2017/3/17.
+ *
+ * <p>the receiver of the geometry, e.g. an adapter of android.graphics.Path
+ */
+public interface PathSink {
+
+    /**
+     * start a new contour at the point
+     * @param x the x of the point
+     * @param y the y of the point
+     */
+    void moveTo(float x, float y);
+
+    /**
+     * add a line from the last point to the point
+     * @param x the x of the point
+     * @param y the y of the point
+     */
+    void lineTo(float x, float y);
+
+    /**
+     * close the current contour
+     */
+    void close();
+}
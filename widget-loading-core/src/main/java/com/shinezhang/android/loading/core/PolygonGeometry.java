@@ -0,0 +1,49 @@
+package com.shinezhang.android.loading.core;
+
+/**
+ * Created by ShineZhang on 2017/3/17.
+ *
+ * <p>the geometry of the regular polygons in the square of the radius,
+ * the polygon is symmetrical about the vertical axis, a vertex or an edge is on the top.
+ */
+public final class PolygonGeometry {
+
+    private PolygonGeometry() {
+    }
+
+    /**
+     * build the polygon into the sink
+     * @param sideCount the side count, it should be larger than 2
+     * @param radius the radius of the circumscribed circle, the center is (radius, radius)
+     * @param sink the receiver of the polygon
+     */
+    public static void build(int sideCount, float radius, PathSink sink) {
+        if (sideCount <= 2) {
+            throw new IllegalArgumentException("side count should be larger than 2");
+        }
+
+        final float rotateDegreeByStep = 360f / sideCount;
+        float rotatedDegree;
+        float x;
+        float y;
+
+        if ((sideCount & 0x1) == 0x0) {
+            rotatedDegree = rotateDegreeByStep * 0.5f;
+            x = radius + radius * LookupTable.sinDegrees(rotatedDegree);
+            y = radius - radius * LookupTable.cosDegrees(rotatedDegree);
+            sink.moveTo(x, y);
+        } else {
+            rotatedDegree = 0f;
+            sink.moveTo(radius, 0);
+        }
+
+        for (int i = 1; i < sideCount; i++) {
+            rotatedDegree += rotateDegreeByStep;
+            x = radius + radius * LookupTable.sinDegrees(rotatedDegree);
+            y = radius - radius * LookupTable.cosDegrees(rotatedDegree);
+            sink.lineTo(x, y);
+        }
+
+        sink.close();
+    }
+}
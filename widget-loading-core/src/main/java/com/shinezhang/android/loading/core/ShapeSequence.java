@@ -0,0 +1,87 @@
+package com.shinezhang.android.loading.core;
+
+/**
+ * Created by ShineZhang on 2017/3/17.
+ *
+ * <p>the step machine of the shape loading, it maps the frame index to the shape and the step in the bounce.
+ * <br/>the step is the degree of a whole bounce(360), a bounce includes both of the 0 and 360 steps,
+ * the shape changes after each bounce, the shapes run by odd index first and then even index.
+ */
+public final class ShapeSequence {
+
+    public static final int STEP_DEGREE                             = 9;
+    public static final int STEP_COUNT_PER_BOUNCE                   = 360 / STEP_DEGREE + 1;
+
+    /**
+     * the shape index of each bounce in a whole period
+     */
+    private final int[] mArrayDrawIndexSequence;
+
+    /**
+     * create the sequence of the shapes
+     * @param shapeCount the count of the shapes, it is always an odd number, the first one is the circle
+     */
+    public ShapeSequence(int shapeCount) {
+        if (shapeCount <= 0) {
+            throw new IllegalArgumentException("shape count should be a positive number");
+        }
+
+        mArrayDrawIndexSequence = createDrawIndexSequence(shapeCount);
+    }
+
+    /**
+     * create the shape index of each bounce in a whole period,
+     * <br/>the odd run is 0, 1, 3, 5..., the even run is 0, 2, 4, 6...
+     * @param shapeCount the count of the shapes, it is always an odd number
+     * @return the index sequence
+     */
+    private static int[] createDrawIndexSequence(int shapeCount) {
+        int bounceCountPerRun = shapeCount / 2 + 1;
+        int[] sequence = new int[bounceCountPerRun * 2];
+        for (int i = 0; i < bounceCountPerRun; i++) {
+            sequence[i] = (i == 0) ? 0 : (i * 2 - 1);
+            sequence[bounceCountPerRun + i] = i * 2;
+        }
+        return sequence;
+    }
+
+    /**
+     * get the shape index of the frame
+     * @param frameIndex the frame index of the animation
+     * @return the shape index
+     */
+    public int getDrawIndex(long frameIndex) {
+        long bounceIndex = frameIndex / STEP_COUNT_PER_BOUNCE;
+        return mArrayDrawIndexSequence[(int) (bounceIndex % mArrayDrawIndexSequence.length)];
+    }
+
+    /**
+     * get the step index in the bounce of the frame
+     * @param frameIndex the frame index of the animation
+     * @return the step index, the range is in [0, {@link #STEP_COUNT_PER_BOUNCE})
+     */
+    public static int getStepIndex(long frameIndex) {
+        return (int) (frameIndex % STEP_COUNT_PER_BOUNCE);
+    }
+
+    /**
+     * compute the throw ratio of each step in a bounce by the interpolator curves,
+     * throw up by the decelerate curve and fall down by the accelerate curve
+     * @param interpolatorFactor the factor of the interpolators
+     * @param outArrayStepRatio the array to receive the ratios, the length should be {@link #STEP_COUNT_PER_BOUNCE}
+     */
+    public static void computeStepRatios(float interpolatorFactor, float[] outArrayStepRatio) {
+        LookupTable accelerateTable = LookupTable.accelerate(interpolatorFactor);
+        LookupTable decelerateTable = LookupTable.decelerate(interpolatorFactor);
+        for (int i = 0; i < STEP_COUNT_PER_BOUNCE; i++) {
+            int step = i * STEP_DEGREE;
+            if (step <= 180) {
+                //throw up
+                outArrayStepRatio[i] = 1 - decelerateTable.get(step / 180f);
+            } else {
+                //throw down
+                outArrayStepRatio[i] = accelerateTable.get(step / 180f - 1f);
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.shinezhang.android.loading.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Created by ShineZhang on 2017/3/16.
+ *
+ * <p>the baked positions of each step in a bounce, all the values are relative to the left and top of the bounds,
+ * so drawing a frame only reads the arrays.
+ * <br/>the timeline only depends on the bounds size, the shadow size and the interpolator factor,
+ * it is immutable and shared by the renderers with the same config.
+ */
+public final class ShapeTimeline {
+
+    /**
+     * the max count of the cached timelines, the timeline evicted is still valid for the renderers using it
+     */
+    private static final int MAX_TIMELINE_COUNT                     = 16;
+
+    private static final LinkedHashMap<Key, ShapeTimeline> sTimelineMap = new LinkedHashMap<Key, ShapeTimeline>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, ShapeTimeline> eldest) {
+            return size() > MAX_TIMELINE_COUNT;
+        }
+    };
+
+    private final int mRadius;
+
+    /**
+     * the shape is not drawn if the bounds is too small to hold it
+     */
+    private final boolean mHasShape;
+    private final float mShadowTop;
+
+    private final float[] mArrayRatio;
+    private final float[] mArrayShadowLeft;
+    private final float[] mArrayShadowRight;
+    private final float[] mArrayShapeTop;
+
+    private ShapeTimeline(int width, int height, int shadowHeight, int shadowTopSpace, float[] arrayStepRatio) {
+        int stepCount = arrayStepRatio.length;
+        int radius = width / 2;
+        int availableDrawHeight = height - shadowHeight - shadowTopSpace - radius * 2;
+
+        mRadius = radius;
+        mHasShape = height >= shadowHeight && availableDrawHeight > 0;
+        mShadowTop = (height < shadowHeight) ? 0f : (height - shadowHeight);
+
+        mArrayRatio = arrayStepRatio.clone();
+        mArrayShadowLeft = new float[stepCount];
+        mArrayShadowRight = new float[stepCount];
+        mArrayShapeTop = new float[stepCount];
+        for (int i = 0; i < stepCount; i++) {
+            float ratio = arrayStepRatio[i];
+            float shadowHalfWidth = (ratio + 0.5f) * radius * 0.5f;
+            mArrayShadowLeft[i] = radius - shadowHalfWidth;
+            mArrayShadowRight[i] = radius + shadowHalfWidth;
+            mArrayShapeTop[i] = ratio * Math.max(availableDrawHeight, 0);
+        }
+    }
+
+    /**
+     * get the shared timeline of the config, it is baked if not cached
+     * @param width the bounds width
+     * @param height the bounds height
+     * @param shadowHeight the shadow height
+     * @param shadowTopSpace the space between the shadow and shape
+     * @param interpolatorFactor the interpolator factor, it is the key of the step ratios
+     * @param arrayStepRatio the throw ratio of each step, it is used when the timeline is baked
+     * @return the timeline, null if the bounds is empty
+     */
+    public static synchronized ShapeTimeline obtain(int width, int height, int shadowHeight, int shadowTopSpace,
+                                       float interpolatorFactor, float[] arrayStepRatio) {
+        if (width / 2 <= 0 || height <= 0) {
+            return null;
+        }
+
+        Key key = new Key(width, height, shadowHeight, shadowTopSpace, interpolatorFactor);
+        ShapeTimeline timeline = sTimelineMap.get(key);
+        if (timeline == null) {
+            timeline = new ShapeTimeline(width, height, shadowHeight, shadowTopSpace, arrayStepRatio);
+            sTimelineMap.put(key, timeline);
+        }
+        return timeline;
+    }
+
+    /**
+     * get the shape radius, it is half of the bounds width
+     * @return the radius
+     */
+    public int getRadius() {
+        return mRadius;
+    }
+
+    /**
+     * whether the bounds can hold the shape, only the shadow is drawn if not
+     * @return true if the shape is drawn
+     */
+    public boolean hasShape() {
+        return mHasShape;
+    }
+
+    /**
+     * get the top of the shadow, the bottom is always the bottom of the bounds
+     * @return the top relative to the bounds
+     */
+    public float getShadowTop() {
+        return mShadowTop;
+    }
+
+    /**
+     * get the throw ratio of the step
+     * @param stepIndex the step index in the bounce
+     * @return the ratio, 0 is on the ground and 1 is at the top
+     */
+    public float getRatio(int stepIndex) {
+        return mArrayRatio[stepIndex];
+    }
+
+    /**
+     * get the left of the shadow of the step
+     * @param stepIndex the step index in the bounce
+     * @return the left relative to the bounds
+     */
+    public float getShadowLeft(int stepIndex) {
+        return mArrayShadowLeft[stepIndex];
+    }
+
+    /**
+     * get the right of the shadow of the step
+     * @param stepIndex the step index in the bounce
+     * @return the right relative to the bounds
+     */
+    public float getShadowRight(int stepIndex) {
+        return mArrayShadowRight[stepIndex];
+    }
+
+    /**
+     * get the top of the shape of the step
+     * @param stepIndex the step index in the bounce
+     * @return the top relative to the bounds
+     */
+    public float getShapeTop(int stepIndex) {
+        return mArrayShapeTop[stepIndex];
+    }
+
+    private static final class Key {
+
+        private final int mWidth;
+        private final int mHeight;
+        private final int mShadowHeight;
+        private final int mShadowTopSpace;
+        private final float mInterpolatorFactor;
+
+        private Key(int width, int height, int shadowHeight, int shadowTopSpace, float interpolatorFactor) {
+            mWidth = width;
+            mHeight = height;
+            mShadowHeight = shadowHeight;
+            mShadowTopSpace = shadowTopSpace;
+            mInterpolatorFactor = interpolatorFactor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return mWidth == key.mWidth
+                    && mHeight == key.mHeight
+                    && mShadowHeight == key.mShadowHeight
+                    && mShadowTopSpace == key.mShadowTopSpace
+                    && Float.compare(mInterpolatorFactor, key.mInterpolatorFactor) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mWidth;
+            result = 31 * result + mHeight;
+            result = 31 * result + mShadowHeight;
+            result = 31 * result + mShadowTopSpace;
+            result = 31 * result + Float.floatToIntBits(mInterpolatorFactor);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.shinezhang.android.loading;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.Drawable;
+
+/**
+ * Created by ShineZhang on 2017/3/9.
+ *
+ * <p>the base class of the loading drawables, the drawable can be used in the {@link android.widget.ImageView},
+ * the compound drawables of {@link android.widget.TextView} and
+ * {@link android.widget.ProgressBar#setIndeterminateDrawable(Drawable)} without a loading view.
+ * <br/>the animation is stopped by default as the other {@link Animatable}, call {@link #start()} to run it,
+ * it is suspended when the drawable is invisible.
+ */
+public abstract class AbstractLoadingDrawable extends Drawable implements Animatable {
+
+    private final AbstractLoadingRenderer mRenderer;
+    private final LoadingAnimationController mAnimationController;
+    private int mAlpha = 0xff;
+
+    protected AbstractLoadingDrawable(AbstractLoadingRenderer renderer) {
+        if (renderer == null) {
+            throw new IllegalArgumentException("renderer can not be null");
+        }
+
+        mRenderer = renderer;
+        mAnimationController = new LoadingAnimationController(new LoadingAnimationController.Callback() {
+
+            @Override
+            public void onAnimationFrame(long frameIndex) {
+                mRenderer.setFrameIndex(frameIndex);
+                invalidateSelf();
+            }
+        });
+        mAnimationController.stop();
+        mAnimationController.setHostVisible(super.isVisible());
+    }
+
+    /**
+     * get the renderer of this drawable
+     * @return the renderer
+     */
+    protected final AbstractLoadingRenderer getRenderer() {
+        return mRenderer;
+    }
+
+    /**
+     * get the animation controller of this drawable
+     * @return the controller
+     */
+    protected final LoadingAnimationController getAnimationController() {
+        return mAnimationController;
+    }
+
+    /**
+     * set the target frame rate of this drawable, it is independent of the animation speed
+     * @param fps a positive number, or {@link LoadingAnimationPolicy#TARGET_FPS_UNLIMITED} by default
+     * @see LoadingAnimationController#setTargetFps(int)
+     */
+    public final void setTargetFps(int fps) {
+        mAnimationController.setTargetFps(fps);
+    }
+
+    /**
+     * get the target frame rate of this drawable
+     * @return the target fps
+     */
+    public final int getTargetFps() {
+        return mAnimationController.getTargetFps();
+    }
+
+    @Override
+    public void start() {
+        mAnimationController.start();
+    }
+
+    @Override
+    public void stop() {
+        mAnimationController.stop();
+        //the shared caches are acquired again if the stopped frame is drawn
+        mRenderer.releaseCaches();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return mAnimationController.isRunning();
+    }
+
+    @Override
+    public boolean setVisible(boolean visible, boolean restart) {
+        boolean changed = super.setVisible(visible, restart);
+        if (visible && restart) {
+            mAnimationController.resetFrameIndex();
+            mRenderer.setFrameIndex(0L);
+        }
+        mAnimationController.setHostVisible(visible);
+        if (!visible) {
+            mRenderer.releaseCaches();
+        }
+        return changed;
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        mRenderer.setBounds(bounds.left, bounds.top, bounds.right, bounds.bottom);
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        mRenderer.draw(canvas);
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mAlpha = alpha;
+        mRenderer.setAlpha(alpha);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getAlpha() {
+        return mAlpha;
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mRenderer.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return mRenderer.getIntrinsicWidth();
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return mRenderer.getIntrinsicHeight();
+    }
+}
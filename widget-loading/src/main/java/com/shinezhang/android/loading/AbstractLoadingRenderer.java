@@ -0,0 +1,138 @@
+package com.shinezhang.android.loading;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ * Created by ShineZhang on 2017/3/9.
+ *
+ * <p>the drawing logic of a loading animation, it is shared by the loading view and the loading drawable.
+ * <br/>the renderer draws the frame of current frame index in the assigned bounds,
+ * it does not drive the animation itself, see {@link LoadingAnimationController}.
+ */
+public abstract class AbstractLoadingRenderer {
+
+    private final Rect mBounds = new Rect();
+    private long mFrameIndex;
+
+    /**
+     * set the draw bounds, usually it is the content area of the view or the bounds of the drawable
+     * @param left the left of the bounds
+     * @param top the top of the bounds
+     * @param right the right of the bounds
+     * @param bottom the bottom of the bounds
+     */
+    public final void setBounds(int left, int top, int right, int bottom) {
+        if (mBounds.left == left && mBounds.top == top && mBounds.right == right && mBounds.bottom == bottom) {
+            return;
+        }
+
+        mBounds.set(left, top, right, bottom);
+        onBoundsChanged(mBounds);
+    }
+
+    /**
+     * get the draw bounds, do not modify the returned value
+     * @return the draw bounds
+     */
+    public final Rect getBounds() {
+        return mBounds;
+    }
+
+    /**
+     * set the frame index to draw
+     * @param frameIndex the frame index from {@link LoadingAnimationController}
+     */
+    public final void setFrameIndex(long frameIndex) {
+        mFrameIndex = frameIndex;
+        onFrameIndexChanged(frameIndex);
+    }
+
+    /**
+     * get the current frame index
+     * @return the frame index
+     */
+    public final long getFrameIndex() {
+        return mFrameIndex;
+    }
+
+    /**
+     * set the paint color with the extra alpha of the renderer, the alpha of the color is kept
+     * @param paint the paint to set
+     * @param color the color
+     * @param alpha the extra alpha, the range is in [0, 255]
+     */
+    protected static void setPaintColor(Paint paint, int color, int alpha) {
+        paint.setColor(color);
+        if (alpha != 0xff) {
+            paint.setAlpha(((color >>> 24) * alpha) / 0xff);
+        }
+    }
+
+    /**
+     * get the area drawn in current frame, the area out of it is not changed by the animation,
+     * it is the whole bounds by default
+     * @param outRect the rect to receive the area, empty if nothing is drawn
+     */
+    public void getFrameDirtyBounds(Rect outRect) {
+        outRect.set(mBounds);
+    }
+
+    /**
+     * build the resources of current config in advance, otherwise they are built lazily in the first drawing
+     */
+    public void prepare() {
+    }
+
+    /**
+     * release the caches which can be rebuilt in next drawing, it is called when the host can not be seen
+     */
+    public void releaseCaches() {
+    }
+
+    /**
+     * called when the draw bounds is changed
+     * @param bounds the new bounds
+     */
+    protected void onBoundsChanged(Rect bounds) {
+    }
+
+    /**
+     * called when the frame index is changed
+     * @param frameIndex the new frame index
+     */
+    protected void onFrameIndexChanged(long frameIndex) {
+    }
+
+    /**
+     * draw the current frame in the bounds
+     * @param canvas the canvas to draw
+     */
+    public abstract void draw(Canvas canvas);
+
+    /**
+     * set the alpha of all the paints
+     * @param alpha the alpha, the range is in [0, 255]
+     */
+    public abstract void setAlpha(int alpha);
+
+    /**
+     * set the color filter of all the paints
+     * @param colorFilter the color filter, null to remove
+     */
+    public abstract void setColorFilter(ColorFilter colorFilter);
+
+    /**
+     * get the desired width when it is not limited
+     * @return the width in pixel
+     */
+    public abstract int getIntrinsicWidth();
+
+    /**
+     * get the desired height when it is not limited
+     * @return the height in pixel
+     */
+    public abstract int getIntrinsicHeight();
+}
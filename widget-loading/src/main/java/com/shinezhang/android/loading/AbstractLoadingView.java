@@ -0,0 +1,302 @@
+package com.shinezhang.android.loading;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * Created by ShineZhang on 2017/3/7.
+ *
+ * <p>the base class of the loading views, it runs the {@link LoadingAnimationController}
+ * only when the view is attached to a visible window and is shown,
+ * so the loading views in a gone container, a paused activity or a detached list item cost nothing.
+ * <br/>the frame rate is throttled by {@link LoadingAnimationPolicy}.
+ */
+public abstract class AbstractLoadingView extends View {
+
+    private LoadingAnimationController mAnimationController;
+    private boolean mIsAttachedToWindow;
+    private boolean mIsAnimationVisible;
+    private boolean mIsFrameLoopSuspended;
+    /**
+     * false if {@link #onPrepare()} is deferred and not called yet
+     */
+    private boolean mIsPrepared = true;
+
+    private final Rect mRectDirty = new Rect();
+    private final Rect mRectFrameDirty = new Rect();
+
+    private LoadingFrameStats mFrameStats;
+
+    public AbstractLoadingView(Context context) {
+        super(context);
+        initAnimationController();
+    }
+
+    public AbstractLoadingView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        initAnimationController();
+    }
+
+    public AbstractLoadingView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        initAnimationController();
+    }
+
+    @TargetApi(21)
+    public AbstractLoadingView(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        super(context, attrs, defStyleAttr, defStyleRes);
+        initAnimationController();
+    }
+
+    private void initAnimationController() {
+        if (!super.isInEditMode()) {
+            //the frame rate follows the battery saver and the animator duration scale
+            LoadingAnimationPolicy.getInstance().init(super.getContext());
+        }
+
+        mAnimationController = new LoadingAnimationController(new LoadingAnimationController.Callback() {
+
+            @Override
+            public void onAnimationFrame(long frameIndex) {
+                if (mFrameStats != null) {
+                    //the throttled frames are not late, compare with the interval after the throttling
+                    mFrameStats.recordInvalidation(mAnimationController.getLastFrameTimeNanos(),
+                            mAnimationController.getFrameIntervalNanos());
+                }
+                AbstractLoadingView.this.onAnimationFrame(frameIndex);
+            }
+        });
+    }
+
+    /**
+     * start the loading animation, the animation is started by default
+     */
+    public final void start() {
+        mAnimationController.start();
+        dispatchAnimatingChanged();
+    }
+
+    /**
+     * stop the loading animation, the current frame is kept on the screen
+     */
+    public final void stop() {
+        mAnimationController.stop();
+        dispatchAnimatingChanged();
+    }
+
+    /**
+     * whether the loading animation is started
+     * @return true if started, the animation is suspended when the view can not be seen
+     */
+    public final boolean isRunning() {
+        return mAnimationController.isRunning();
+    }
+
+    /**
+     * whether the animation is started and the view can be seen
+     * @return true if the view should be animating now
+     */
+    protected final boolean isAnimating() {
+        return mAnimationController.isRunning() && mIsAnimationVisible;
+    }
+
+    /**
+     * suspend the frame loop of the animation controller even if the view is animating,
+     * it is used when the animation is driven by other way, e.g. a render thread animation
+     * @param suspended true to suspend the frame loop
+     */
+    protected final void setFrameLoopSuspended(boolean suspended) {
+        mIsFrameLoopSuspended = suspended;
+        mAnimationController.setHostVisible(mIsAnimationVisible && !mIsFrameLoopSuspended);
+        if (mFrameStats != null) {
+            mFrameStats.pause();
+        }
+    }
+
+    /**
+     * set the target frame rate of this view, it is independent of the animation speed,
+     * the frames between are skipped, so it trades the smoothness for the cpu without changing the speed.
+     * <br/>the frame rate is also limited by {@link LoadingAnimationPolicy}
+     * @param fps a positive number, or {@link LoadingAnimationPolicy#TARGET_FPS_UNLIMITED} by default
+     */
+    public final void setTargetFps(int fps) {
+        mAnimationController.setTargetFps(fps);
+    }
+
+    /**
+     * get the target frame rate of this view
+     * @return the target fps
+     */
+    public final int getTargetFps() {
+        return mAnimationController.getTargetFps();
+    }
+
+    /**
+     * enable or disable the frame statistics of this view, it is disabled by default.
+     * <br/>the statistics are recorded by primitive counters, it is cheap enough to be left on in the release builds
+     * @param enabled true to enable, the statistics are cleared when disabled
+     * @see #getFrameStats()
+     */
+    public final void setFrameStatsEnabled(boolean enabled) {
+        if (enabled == (mFrameStats != null)) {
+            return;
+        }
+
+        mFrameStats = enabled ? new LoadingFrameStats() : null;
+    }
+
+    /**
+     * get the frame statistics of this view, get the snapshot or set the listener by it
+     * @return the statistics, null if disabled
+     * @see #setFrameStatsEnabled(boolean)
+     */
+    public final LoadingFrameStats getFrameStats() {
+        return mFrameStats;
+    }
+
+    /**
+     * called when the view starts or stops animating,
+     * caused by {@link #start()}, {@link #stop()} or the visibility changes
+     * @param animating whether the view should be animating now
+     * @see #isAnimating()
+     */
+    protected void onAnimatingChanged(boolean animating) {
+    }
+
+    private void dispatchAnimatingChanged() {
+        if (mFrameStats != null) {
+            //the time during the pause is not an interval of the frames
+            mFrameStats.pause();
+        }
+        onAnimatingChanged(isAnimating());
+    }
+
+    /**
+     * defer {@link #onPrepare()} until the view is attached to a window or drawn for the first time,
+     * the subclass calls it in the constructor to keep the inflation cheap,
+     * so the views inflated but never shown, e.g. in the error states, do not build the resources
+     */
+    protected final void deferPrepare() {
+        mIsPrepared = false;
+    }
+
+    /**
+     * whether the deferred resources are prepared
+     * @return true if {@link #onPrepare()} is called or not deferred
+     */
+    protected final boolean isPrepared() {
+        return mIsPrepared;
+    }
+
+    /**
+     * build the deferred resources, e.g. the geometry and the bitmaps,
+     * it is called once before the first attach or the first draw after {@link #deferPrepare()}
+     */
+    protected void onPrepare() {
+    }
+
+    private void ensurePrepared() {
+        if (mIsPrepared) {
+            return;
+        }
+
+        mIsPrepared = true;
+        onPrepare();
+    }
+
+    /**
+     * get the animation controller of this view
+     * @return the controller
+     */
+    protected final LoadingAnimationController getAnimationController() {
+        return mAnimationController;
+    }
+
+    /**
+     * called when the animation frame index is changed, invalidate the view by default
+     * @param frameIndex the new frame index
+     */
+    protected void onAnimationFrame(long frameIndex) {
+        invalidate();
+    }
+
+    /**
+     * move the renderer to the frame index, and only invalidate the union of the areas drawn
+     * in the previous frame and the new frame, see {@link AbstractLoadingRenderer#getFrameDirtyBounds(Rect)}
+     * @param renderer the renderer drawn in this view, the bounds should be in the coordinate of this view
+     * @param frameIndex the new frame index
+     */
+    protected final void invalidateRendererFrame(AbstractLoadingRenderer renderer, long frameIndex) {
+        renderer.getFrameDirtyBounds(mRectDirty);
+        renderer.setFrameIndex(frameIndex);
+        renderer.getFrameDirtyBounds(mRectFrameDirty);
+        mRectDirty.union(mRectFrameDirty);
+        if (mRectDirty.isEmpty()) {
+            return;
+        }
+
+        super.invalidate(mRectDirty);
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        ensurePrepared();
+        if (mFrameStats == null) {
+            super.draw(canvas);
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        super.draw(canvas);
+        mFrameStats.recordDraw(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        ensurePrepared();
+        super.onAttachedToWindow();
+        mIsAttachedToWindow = true;
+        updateAnimationVisibility();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        mIsAttachedToWindow = false;
+        updateAnimationVisibility();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateAnimationVisibility();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateAnimationVisibility();
+    }
+
+    private void updateAnimationVisibility() {
+        if (mAnimationController == null) {
+            //the visibility may be dispatched by the constructor of View
+            return;
+        }
+
+        boolean visible = mIsAttachedToWindow
+                && getWindowVisibility() == VISIBLE
+                && isShown();
+        if (visible == mIsAnimationVisible) {
+            return;
+        }
+
+        mIsAnimationVisible = visible;
+        mAnimationController.setHostVisible(mIsAnimationVisible && !mIsFrameLoopSuspended);
+        dispatchAnimatingChanged();
+    }
+}
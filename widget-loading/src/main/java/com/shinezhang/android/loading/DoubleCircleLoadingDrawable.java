@@ -0,0 +1,54 @@
+package com.shinezhang.android.loading;
+
+import android.content.Context;
+
+/**
+ * Created by ShineZhang on 2017/3/9.
+ *
+ * <p>the drawable version of {@link DoubleCircleLoadingView}
+ */
+public class DoubleCircleLoadingDrawable extends AbstractLoadingDrawable {
+
+    private final DoubleCircleLoadingRenderer mRenderer;
+
+    public DoubleCircleLoadingDrawable(Context context) {
+        this(new DoubleCircleLoadingRenderer(context));
+    }
+
+    private DoubleCircleLoadingDrawable(DoubleCircleLoadingRenderer renderer) {
+        super(renderer);
+        mRenderer = renderer;
+        setInvalidateDelayTime(DoubleCircleLoadingRenderer.DEFAULT_INVALIDATE_DELAY_TIME);
+    }
+
+    /**
+     * set the main circle(left circle) color
+     * @param color the color of the circle
+     */
+    public final void setMainCircleColor(int color) {
+        mRenderer.setMainCircleColor(color);
+        super.invalidateSelf();
+    }
+
+    /**
+     * set the assist circle(right circle) color
+     * @param color the color of the circle
+     */
+    public final void setAssistCircleColor(int color) {
+        mRenderer.setAssistCircleColor(color);
+        super.invalidateSelf();
+    }
+
+    /**
+     * set the time of each animation step,
+     * the value smaller than {@link LoadingFrameClock#MIN_FRAME_INTERVAL_MILLIS} is treated as one frame
+     * @param delayTimeMills the unit is milliseconds, if negative number is set, do nothing.
+     */
+    public final void setInvalidateDelayTime(long delayTimeMills) {
+        if (delayTimeMills < 0) {
+            return;
+        }
+
+        super.getAnimationController().setFrameDuration(delayTimeMills);
+    }
+}
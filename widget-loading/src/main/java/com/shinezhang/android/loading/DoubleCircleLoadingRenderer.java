@@ -0,0 +1,192 @@
+package com.shinezhang.android.loading;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+
+import com.shinezhang.android.loading.core.LookupTable;
+
+/**
+ * Created by ShineZhang on 2017/3/9.
+ *
+ * <p>the renderer of the double circle loading, the two circles zoom in and out by turns.
+ *
+ * @see DoubleCircleLoadingView
+ * @see DoubleCircleLoadingDrawable
+ */
+public final class DoubleCircleLoadingRenderer extends AbstractLoadingRenderer {
+
+    /* package */ static final long DEFAULT_INVALIDATE_DELAY_TIME   = 50L;
+
+    /* package */ static final int DEFAULT_MAIN_CIRCLE_COLOR        = 0xffff5400;
+    /* package */ static final int DEFAULT_ASSIST_CIRCLE_COLOR      = 0xffa9a9a9;
+
+    private static final int DEFAULT_DIMEN_DP_WIDTH                 = 50;
+
+    /**
+     * make sure the value is in (0, 180),
+     * <br/>if the value is 0 or smaller, exception will throw;
+     * <br/>if the value is 180 or larger, you can not see the dynamic effect
+     */
+    private static final int DEGREE_STEP                            = 15;
+
+    private static final int ARRAY_VALUES_LENGTH;
+
+    private final int mDimenDefaultWidth;
+
+    private final Paint mPaintMainCircle;
+    private final Paint mPaintAssistCircle;
+    private int mMainCircleColor;
+    private int mAssistCircleColor;
+    private int mAlpha                                              = 0xff;
+
+    private int mCurValueIndex = 0;
+
+    public DoubleCircleLoadingRenderer(Context context) {
+        DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
+        mDimenDefaultWidth = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_DIMEN_DP_WIDTH, displayMetrics);
+
+        mPaintMainCircle = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mPaintMainCircle.setStyle(Paint.Style.FILL);
+
+        mPaintAssistCircle = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mPaintAssistCircle.setStyle(Paint.Style.FILL);
+
+        setMainCircleColor(DEFAULT_MAIN_CIRCLE_COLOR);
+        setAssistCircleColor(DEFAULT_ASSIST_CIRCLE_COLOR);
+    }
+
+    /**
+     * get the default width, it is used when the size is not limited
+     * @return the width in pixel
+     */
+    public int getDefaultWidth() {
+        return mDimenDefaultWidth;
+    }
+
+    /**
+     * set the main circle(left circle) color
+     * @param color the color of the circle
+     */
+    public void setMainCircleColor(int color) {
+        mMainCircleColor = color;
+        setPaintColor(mPaintMainCircle, color, mAlpha);
+    }
+
+    /**
+     * get the main circle(left circle) color
+     * @return the color of the circle
+     */
+    public int getMainCircleColor() {
+        return mMainCircleColor;
+    }
+
+    /**
+     * set the assist circle(right circle) color
+     * @param color the color of the circle
+     */
+    public void setAssistCircleColor(int color) {
+        mAssistCircleColor = color;
+        setPaintColor(mPaintAssistCircle, color, mAlpha);
+    }
+
+    /**
+     * get the assist circle(right circle) color
+     * @return the color of the circle
+     */
+    public int getAssistCircleColor() {
+        return mAssistCircleColor;
+    }
+
+    @Override
+    protected void onFrameIndexChanged(long frameIndex) {
+        mCurValueIndex = (int) (frameIndex % ARRAY_VALUES_LENGTH);
+    }
+
+    @Override
+    public void getFrameDirtyBounds(Rect outRect) {
+        Rect bounds = super.getBounds();
+        int availableDrawWidth = bounds.width();
+        int availableDrawHeight = bounds.height();
+        if (availableDrawWidth <= 0 || availableDrawHeight <= 0) {
+            outRect.setEmpty();
+            return;
+        }
+
+        //the circles are never larger than the max radius, 1 pixel more for the anti alias
+        float halfHeight = availableDrawHeight * 0.5f;
+        float avgX = availableDrawWidth * 0.2f;
+        float maxRadius = Math.min(avgX, halfHeight);
+        outRect.set((int) (bounds.left + avgX - maxRadius) - 1, (int) (bounds.top + halfHeight - maxRadius) - 1,
+                (int) Math.ceil(bounds.left + avgX * 4f + maxRadius) + 1, (int) Math.ceil(bounds.top + halfHeight + maxRadius) + 1);
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        Rect bounds = super.getBounds();
+        int availableDrawWidth = bounds.width();
+        if (availableDrawWidth <= 0) {
+            return;
+        }
+
+        int availableDrawHeight = bounds.height();
+        if (availableDrawHeight <= 0) {
+            return;
+        }
+
+        float halfHeight = availableDrawHeight * 0.5f;
+        float avgX = availableDrawWidth * 0.2f;
+        float mainCircleCenterX = avgX;
+        float assistCircleCenterX = avgX * 4f;
+        float maxRadius = Math.min(avgX, halfHeight);
+
+        if (mCurValueIndex >= ARRAY_VALUES_LENGTH || mCurValueIndex < 0) {
+            mCurValueIndex = 0;
+        }
+
+        //the circle radius is 0.75~1 of max radius, make sure all the values are positive number
+        float degree = DEGREE_STEP * mCurValueIndex;
+        float ratioMainCircleRadius = (0.75f + Math.abs(LookupTable.cosDegrees(degree)) * 0.25f);
+        float ratioAssistCircleRadius = (0.75f + Math.abs(LookupTable.sinDegrees(degree)) * 0.25f);
+
+        canvas.drawCircle(mainCircleCenterX + bounds.left, halfHeight + bounds.top, maxRadius * ratioMainCircleRadius, mPaintMainCircle);
+        canvas.drawCircle(assistCircleCenterX + bounds.left, halfHeight + bounds.top, maxRadius * ratioAssistCircleRadius, mPaintAssistCircle);
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mAlpha = alpha;
+        setPaintColor(mPaintMainCircle, mMainCircleColor, alpha);
+        setPaintColor(mPaintAssistCircle, mAssistCircleColor, alpha);
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mPaintMainCircle.setColorFilter(colorFilter);
+        mPaintAssistCircle.setColorFilter(colorFilter);
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return mDimenDefaultWidth;
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        //the radius is 1/5 of the width
+        return (int) (mDimenDefaultWidth * 0.4f);
+    }
+
+    static {
+        //the sin and cos values are looked up from the shared table, see LookupTable
+        if (DEGREE_STEP <= 0) {
+            throw new RuntimeException("degree step should be a positive number");
+        }
+
+        ARRAY_VALUES_LENGTH = (int) Math.ceil(180d / DEGREE_STEP);
+    }
+}
@@ -0,0 +1,227 @@
+package com.shinezhang.android.loading;
+
+import com.shinezhang.android.loading.core.FrameStepper;
+
+/**
+ * Created by ShineZhang on 2017/3/7.
+ *
+ * <p>the animation controller shared by the loading views,
+ * it counts the frame index from the elapsed frame time of {@link LoadingTicker}.
+ * <br/>the controller is only registered to the ticker when the animation is started and the host is visible,
+ * the elapsed time is kept during the pause, so the animation resumes with the same phase.
+ * <br/>the speed is decided by the frame duration, the target fps only limits how often the host is redrawn,
+ * the frame indexes between are skipped, so the perceived speed is the same at any frame rate.
+ * <br/>all the methods should be called on the main thread.
+ */
+public final class LoadingAnimationController {
+
+    private final Callback mCallback;
+
+    private final FrameStepper mFrameStepper;
+
+    private int mTargetFps                                          = LoadingAnimationPolicy.TARGET_FPS_UNLIMITED;
+    private long mMinFrameIntervalNanos;
+    private long mLastDispatchTimeNanos                             = -1L;
+    private long mDispatchedFrameIndex;
+
+    private boolean mIsStarted = true;
+    private boolean mIsHostVisible;
+    private boolean mIsRegistered;
+
+    private final LoadingTicker.Client mTickerClient = new LoadingTicker.Client() {
+
+        @Override
+        public void onTick(long frameTimeNanos) {
+            onAnimationFrame(frameTimeNanos);
+        }
+    };
+
+    /**
+     * the callback of the animation host, e.g. the view or drawable
+     */
+    public interface Callback {
+
+        /**
+         * called when the frame index is changed, the host should redraw itself
+         * @param frameIndex the new frame index
+         */
+        void onAnimationFrame(long frameIndex);
+    }
+
+    /**
+     * create the controller, the animation is started by default,
+     * but the frame loop waits until the host is visible
+     * @param callback the host callback, can not be null
+     */
+    public LoadingAnimationController(Callback callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("callback can not be null");
+        }
+
+        mCallback = callback;
+        mFrameStepper = new FrameStepper(LoadingFrameClock.millisToNanos(LoadingFrameClock.MIN_FRAME_INTERVAL_MILLIS));
+    }
+
+    /**
+     * set the duration of each frame index
+     * @param durationMillis the unit is milliseconds, the value smaller than
+     *                       {@link LoadingFrameClock#MIN_FRAME_INTERVAL_MILLIS} is treated as one frame
+     */
+    public void setFrameDuration(long durationMillis) {
+        //keep the current frame index with the new duration
+        mFrameStepper.setFrameDuration(LoadingFrameClock.millisToNanos(
+                Math.max(durationMillis, LoadingFrameClock.MIN_FRAME_INTERVAL_MILLIS)));
+    }
+
+    /**
+     * set the target frame rate of the host, it is independent of the frame duration
+     * @param fps a positive number, or {@link LoadingAnimationPolicy#TARGET_FPS_UNLIMITED} to redraw on each frame index
+     */
+    public void setTargetFps(int fps) {
+        if (fps <= 0 && fps != LoadingAnimationPolicy.TARGET_FPS_UNLIMITED) {
+            throw new IllegalArgumentException("target fps should be a positive number or TARGET_FPS_UNLIMITED");
+        }
+
+        mTargetFps = fps;
+        mMinFrameIntervalNanos = (fps == LoadingAnimationPolicy.TARGET_FPS_UNLIMITED) ? 0L
+                : LoadingFrameClock.millisToNanos(1000L) / fps;
+    }
+
+    /**
+     * get the target frame rate of the host
+     * @return the target fps, {@link LoadingAnimationPolicy#TARGET_FPS_UNLIMITED} by default
+     */
+    public int getTargetFps() {
+        return mTargetFps;
+    }
+
+    /**
+     * get the expected interval between the dispatched frames,
+     * it is the frame duration limited by the target fps and {@link LoadingAnimationPolicy}
+     * @return the interval in nanoseconds
+     */
+    /* package */ long getFrameIntervalNanos() {
+        long intervalNanos = Math.max(mFrameStepper.getFrameDuration(), mMinFrameIntervalNanos);
+        long policyIntervalNanos = LoadingAnimationPolicy.getInstance().getMinFrameIntervalNanos();
+        if (policyIntervalNanos != Long.MAX_VALUE) {
+            //no frame is dispatched in the static state
+            intervalNanos = Math.max(intervalNanos, policyIntervalNanos);
+        }
+        return intervalNanos;
+    }
+
+    /**
+     * get the frame time of the last dispatched frame, it is the frame time of current frame in the callback
+     * @return the frame time in nanoseconds, -1 if no frame is dispatched
+     */
+    /* package */ long getLastFrameTimeNanos() {
+        return mLastDispatchTimeNanos;
+    }
+
+    /**
+     * get the current frame index
+     * @return the frame index, starts from 0
+     */
+    public long getFrameIndex() {
+        return mFrameStepper.getFrameIndex();
+    }
+
+    /**
+     * reset the frame index to 0, the host should redraw itself if necessary
+     */
+    public void resetFrameIndex() {
+        mFrameStepper.reset();
+        mDispatchedFrameIndex = 0L;
+    }
+
+    /**
+     * start the animation, the frame loop runs when the host is visible
+     */
+    public void start() {
+        if (mIsStarted) {
+            return;
+        }
+
+        mIsStarted = true;
+        updateFrameLoop();
+    }
+
+    /**
+     * stop the animation, the current frame is kept
+     */
+    public void stop() {
+        if (!mIsStarted) {
+            return;
+        }
+
+        mIsStarted = false;
+        updateFrameLoop();
+    }
+
+    /**
+     * whether the animation is started
+     * @return true if started, even if the host is invisible now
+     */
+    public boolean isRunning() {
+        return mIsStarted;
+    }
+
+    /**
+     * whether the frame loop is running, which means the animation is started and the host is visible
+     * @return true if the frame loop is running
+     */
+    public boolean isAnimating() {
+        return mIsStarted && mIsHostVisible;
+    }
+
+    /**
+     * set the host visibility, the frame loop is suspended when the host can not be seen
+     * @param visible true if the host is attached and visible
+     */
+    public void setHostVisible(boolean visible) {
+        if (mIsHostVisible == visible) {
+            return;
+        }
+
+        mIsHostVisible = visible;
+        updateFrameLoop();
+    }
+
+    private void updateFrameLoop() {
+        boolean animating = isAnimating();
+        if (animating == mIsRegistered) {
+            return;
+        }
+
+        mIsRegistered = animating;
+        if (animating) {
+            LoadingTicker.getInstance().register(mTickerClient);
+        } else {
+            //the time during the pause is not counted
+            mFrameStepper.pause();
+            LoadingTicker.getInstance().unregister(mTickerClient);
+        }
+    }
+
+    private void onAnimationFrame(long frameTimeNanos) {
+        if (!isAnimating()) {
+            return;
+        }
+
+        mFrameStepper.advance(frameTimeNanos);
+        long frameIndex = mFrameStepper.getFrameIndex();
+        if (frameIndex == mDispatchedFrameIndex) {
+            return;
+        }
+
+        if (mMinFrameIntervalNanos > 0L && mLastDispatchTimeNanos >= 0L
+                && frameTimeNanos - mLastDispatchTimeNanos + LoadingFrameClock.FRAME_INTERVAL_TOLERANCE_NANOS < mMinFrameIntervalNanos) {
+            //limited by the target fps, the frame index is dispatched later
+            return;
+        }
+
+        mDispatchedFrameIndex = frameIndex;
+        mLastDispatchTimeNanos = frameTimeNanos;
+        mCallback.onAnimationFrame(frameIndex);
+    }
+}
@@ -0,0 +1,248 @@
+package com.shinezhang.android.loading;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.provider.Settings;
+
+/**
+ * Created by ShineZhang on 2017/3/19.
+ *
+ * <p>the process-wide frame rate policy of the loading animations, it follows the battery saver
+ * and the animator duration scale of the system, the app sets the target fps of each state.
+ * <br/>the policy is applied by {@link LoadingTicker}, so all the running loadings are throttled together,
+ * the animations are still time based, a lower fps only drops the frames between.
+ * <br/>the system state is monitored since the first loading view is created or {@link #init(Context)} is called.
+ * <br/>all the methods should be called on the main thread.
+ */
+public final class LoadingAnimationPolicy {
+
+    /**
+     * the frames are not throttled, the loadings run at their own frame duration
+     */
+    public static final int TARGET_FPS_UNLIMITED                    = -1;
+    /**
+     * the animations are paused, the current frame is kept on the screen
+     */
+    public static final int TARGET_FPS_STATIC                       = 0;
+
+    private static final int DEFAULT_NORMAL_TARGET_FPS              = TARGET_FPS_UNLIMITED;
+    private static final int DEFAULT_POWER_SAVE_TARGET_FPS          = 20;
+    private static final int DEFAULT_ANIMATIONS_DISABLED_TARGET_FPS = TARGET_FPS_STATIC;
+
+    private static LoadingAnimationPolicy sInstance;
+
+    private int mNormalTargetFps                                    = DEFAULT_NORMAL_TARGET_FPS;
+    private int mPowerSaveTargetFps                                 = DEFAULT_POWER_SAVE_TARGET_FPS;
+    private int mAnimationsDisabledTargetFps                        = DEFAULT_ANIMATIONS_DISABLED_TARGET_FPS;
+
+    private Context mAppContext;
+    private boolean mIsPowerSaveMode;
+    private float mAnimatorDurationScale                            = 1f;
+
+    private final BroadcastReceiver mPowerSaveReceiver              = new BroadcastReceiver() {
+
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            updateSystemState();
+        }
+    };
+
+    private final ContentObserver mAnimatorScaleObserver            = new ContentObserver(new Handler(Looper.getMainLooper())) {
+
+        @Override
+        public void onChange(boolean selfChange) {
+            updateSystemState();
+        }
+    };
+
+    /**
+     * get the policy of the process
+     * @return the shared policy
+     */
+    public static LoadingAnimationPolicy getInstance() {
+        if (sInstance == null) {
+            sInstance = new LoadingAnimationPolicy();
+        }
+        return sInstance;
+    }
+
+    private LoadingAnimationPolicy() {
+    }
+
+    /**
+     * start to monitor the battery saver and the animator duration scale, it is called by the loading views,
+     * call it in advance if only the loading drawables are used
+     * @param context the context, the application context is kept
+     */
+    public void init(Context context) {
+        if (mAppContext != null) {
+            return;
+        }
+
+        Context appContext = context.getApplicationContext();
+        mAppContext = (appContext == null) ? context : appContext;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            mAppContext.registerReceiver(mPowerSaveReceiver, new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            mAppContext.getContentResolver().registerContentObserver(
+                    Settings.Global.getUriFor(Settings.Global.ANIMATOR_DURATION_SCALE), false, mAnimatorScaleObserver);
+        }
+
+        updateSystemState();
+    }
+
+    /**
+     * set the target fps in the normal state
+     * @param fps the target fps, {@link #TARGET_FPS_UNLIMITED} by default
+     */
+    public void setNormalTargetFps(int fps) {
+        mNormalTargetFps = checkTargetFps(fps);
+        notifyPolicyChanged();
+    }
+
+    /**
+     * get the target fps in the normal state
+     * @return the target fps
+     */
+    public int getNormalTargetFps() {
+        return mNormalTargetFps;
+    }
+
+    /**
+     * set the target fps when the battery saver is on
+     * @param fps the target fps, 20 by default
+     */
+    public void setPowerSaveTargetFps(int fps) {
+        mPowerSaveTargetFps = checkTargetFps(fps);
+        notifyPolicyChanged();
+    }
+
+    /**
+     * get the target fps when the battery saver is on
+     * @return the target fps
+     */
+    public int getPowerSaveTargetFps() {
+        return mPowerSaveTargetFps;
+    }
+
+    /**
+     * set the target fps when the animator duration scale is 0, e.g. the animations are turned off
+     * in the developer options or by the accessibility settings
+     * @param fps the target fps, {@link #TARGET_FPS_STATIC} by default
+     */
+    public void setAnimationsDisabledTargetFps(int fps) {
+        mAnimationsDisabledTargetFps = checkTargetFps(fps);
+        notifyPolicyChanged();
+    }
+
+    /**
+     * get the target fps when the animator duration scale is 0
+     * @return the target fps
+     */
+    public int getAnimationsDisabledTargetFps() {
+        return mAnimationsDisabledTargetFps;
+    }
+
+    /**
+     * whether the battery saver is on
+     * @return true if on
+     */
+    public boolean isPowerSaveMode() {
+        return mIsPowerSaveMode;
+    }
+
+    /**
+     * whether the animations are disabled by the system
+     * @return true if the animator duration scale is 0
+     */
+    public boolean isAnimationsDisabled() {
+        return mAnimatorDurationScale == 0f;
+    }
+
+    /**
+     * get the target fps of current state, the disabled animations take precedence over the battery saver
+     * @return the target fps, {@link #TARGET_FPS_UNLIMITED} or {@link #TARGET_FPS_STATIC} or a positive number
+     */
+    public int getCurrentTargetFps() {
+        if (isAnimationsDisabled()) {
+            return mAnimationsDisabledTargetFps;
+        }
+
+        if (mIsPowerSaveMode) {
+            return mPowerSaveTargetFps;
+        }
+
+        return mNormalTargetFps;
+    }
+
+    /**
+     * get the min interval between the frames of current state
+     * @return the interval in nanoseconds, 0 if not throttled, {@link Long#MAX_VALUE} if static
+     */
+    /* package */ long getMinFrameIntervalNanos() {
+        int fps = getCurrentTargetFps();
+        if (fps == TARGET_FPS_UNLIMITED) {
+            return 0L;
+        }
+
+        if (fps == TARGET_FPS_STATIC) {
+            return Long.MAX_VALUE;
+        }
+
+        return LoadingFrameClock.millisToNanos(1000L) / fps;
+    }
+
+    private static int checkTargetFps(int fps) {
+        if (fps < TARGET_FPS_UNLIMITED) {
+            throw new IllegalArgumentException("target fps should be TARGET_FPS_UNLIMITED, TARGET_FPS_STATIC or a positive number");
+        }
+        return fps;
+    }
+
+    private void updateSystemState() {
+        boolean powerSaveMode = readPowerSaveMode();
+        float animatorDurationScale = readAnimatorDurationScale();
+        if (powerSaveMode == mIsPowerSaveMode && animatorDurationScale == mAnimatorDurationScale) {
+            return;
+        }
+
+        mIsPowerSaveMode = powerSaveMode;
+        mAnimatorDurationScale = animatorDurationScale;
+        notifyPolicyChanged();
+    }
+
+    @TargetApi(21)
+    private boolean readPowerSaveMode() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return false;
+        }
+
+        PowerManager powerManager = (PowerManager) mAppContext.getSystemService(Context.POWER_SERVICE);
+        return powerManager != null && powerManager.isPowerSaveMode();
+    }
+
+    @SuppressWarnings("deprecation")
+    private float readAnimatorDurationScale() {
+        ContentResolver contentResolver = mAppContext.getContentResolver();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return Settings.Global.getFloat(contentResolver, Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+        }
+        return Settings.System.getFloat(contentResolver, Settings.System.ANIMATOR_DURATION_SCALE, 1f);
+    }
+
+    private void notifyPolicyChanged() {
+        LoadingTicker.getInstance().onPolicyChanged();
+    }
+}
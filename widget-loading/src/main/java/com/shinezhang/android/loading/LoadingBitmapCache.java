@@ -0,0 +1,424 @@
+package com.shinezhang.android.loading;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.v4.content.ContextCompat;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Created by ShineZhang on 2017/3/14.
+ *
+ * <p>the process wide cache of the loading bitmaps loaded from the resources,
+ * all the loadings with the same image share one bitmap instead of loading a copy for each instance.
+ * <br/>the bitmaps are evicted by LRU when the total size exceeds the memory budget,
+ * and all of them are dropped when the system asks to trim memory, they are reloaded on demand.
+ * <br/>the bitmap is never recycled by the cache, because it may be still drawn by a loading.
+ * <br/>the bitmap can be loaded in background and down sampled to the draw size,
+ * see {@link #loadBitmapAsync(Context, int, int, int, Callback)}.
+ */
+public final class LoadingBitmapCache {
+
+    private static final String TAG                                 = "LoadingBitmapCache";
+
+    /**
+     * the default memory budget is 1/64 of the max heap
+     */
+    private static final int DEFAULT_MEMORY_BUDGET_DIVISOR          = 64;
+
+    private static final LoadingBitmapCache sInstance               = new LoadingBitmapCache();
+
+    /**
+     * the bitmaps by access order, the eldest is the first
+     */
+    private final LinkedHashMap<Key, Bitmap> mBitmapMap             = new LinkedHashMap<Key, Bitmap>(8, 0.75f, true);
+    private int mMemoryBudget;
+    private int mSize;
+
+    /**
+     * the callbacks of the loading bitmaps, the same bitmap is only loaded once at the same time
+     */
+    private final HashMap<Key, ArrayList<Callback>> mPendingCallbacks = new HashMap<Key, ArrayList<Callback>>();
+    private ExecutorService mLoadExecutor;
+    private final Handler mMainHandler                              = new Handler(Looper.getMainLooper());
+
+    private boolean mIsComponentCallbacksRegistered;
+    private final ComponentCallbacks2 mComponentCallbacks           = new ComponentCallbacks2() {
+
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+                //include the ui hidden and background levels, the loadings can not be seen
+                evictAll();
+            } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                trimToSize(getMemoryBudget() / 2);
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            //the density is a part of the key, nothing to do
+        }
+
+        @Override
+        public void onLowMemory() {
+            evictAll();
+        }
+    };
+
+    private LoadingBitmapCache() {
+        mMemoryBudget = (int) Math.min(Runtime.getRuntime().maxMemory() / DEFAULT_MEMORY_BUDGET_DIVISOR, Integer.MAX_VALUE);
+    }
+
+    public static LoadingBitmapCache getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * set the max bytes of all the cached bitmaps, the eldest bitmaps are evicted if exceeded
+     * @param memoryBudget the budget in bytes, 0 to disable the cache
+     */
+    public synchronized void setMemoryBudget(int memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("memory budget can not be negative");
+        }
+
+        mMemoryBudget = memoryBudget;
+        trimToSize(mMemoryBudget);
+    }
+
+    /**
+     * get the max bytes of all the cached bitmaps
+     * @return the budget in bytes
+     */
+    public synchronized int getMemoryBudget() {
+        return mMemoryBudget;
+    }
+
+    /**
+     * get the current bytes of all the cached bitmaps
+     * @return the size in bytes
+     */
+    public synchronized int getSize() {
+        return mSize;
+    }
+
+    /**
+     * drop all the cached bitmaps
+     */
+    public synchronized void evictAll() {
+        trimToSize(-1);
+    }
+
+    /**
+     * get the bitmap of the image resource at the intrinsic size, it is loaded and cached if not cached
+     * @param context the context, the bitmap is loaded by the density of it
+     * @param resId the image resource id
+     * @return the bitmap, never be null
+     */
+    public Bitmap getBitmap(Context context, int resId) {
+        Key key = new Key(resId, context.getResources().getDisplayMetrics().densityDpi, 0, 0);
+        Bitmap bitmap = get(context, key);
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        //load the bitmap out of the lock, the same bitmap may be loaded twice, the latter one is kept
+        bitmap = loadBitmap(context, resId, 0, 0);
+        put(key, bitmap);
+        return bitmap;
+    }
+
+    /**
+     * get the cached bitmap of the image resource with the target size, do not load it if not cached
+     * @param context the context, the bitmap is loaded by the density of it
+     * @param resId the image resource id
+     * @param targetWidth the target width, 0 for the intrinsic size
+     * @param targetHeight the target height, 0 for the intrinsic size
+     * @return the bitmap, null if not cached
+     */
+    public Bitmap getCachedBitmap(Context context, int resId, int targetWidth, int targetHeight) {
+        return get(context, new Key(resId, context.getResources().getDisplayMetrics().densityDpi, targetWidth, targetHeight));
+    }
+
+    /**
+     * load the bitmap of the image resource in background, the bitmap is down sampled to fit the target size,
+     * the callback is called in the main thread, with null if the loading failed.
+     * <br/>the bitmap is put into the cache, call {@link #getCachedBitmap(Context, int, int, int)} first
+     * to avoid the thread switching if it is cached
+     * @param context the context, the bitmap is loaded by the density of it
+     * @param resId the image resource id
+     * @param targetWidth the target width, 0 for the intrinsic size
+     * @param targetHeight the target height, 0 for the intrinsic size
+     * @param callback the callback to receive the bitmap, it is held until the loading is done,
+     *                 so it should not hold a view or an activity strongly
+     */
+    public void loadBitmapAsync(final Context context, final int resId, final int targetWidth, final int targetHeight,
+                                Callback callback) {
+        final Key key = new Key(resId, context.getResources().getDisplayMetrics().densityDpi, targetWidth, targetHeight);
+        synchronized (this) {
+            registerComponentCallbacks(context);
+            ArrayList<Callback> callbacks = mPendingCallbacks.get(key);
+            if (callbacks != null) {
+                //the same bitmap is loading
+                callbacks.add(callback);
+                return;
+            }
+
+            callbacks = new ArrayList<Callback>(1);
+            callbacks.add(callback);
+            mPendingCallbacks.put(key, callbacks);
+
+            if (mLoadExecutor == null) {
+                mLoadExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, TAG);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+        }
+
+        mLoadExecutor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+
+                Bitmap bitmap = get(context, key);
+                if (bitmap == null) {
+                    try {
+                        bitmap = loadBitmap(context, resId, targetWidth, targetHeight);
+                        put(key, bitmap);
+                    } catch (RuntimeException e) {
+                        Log.w(TAG, "load bitmap failed, resId: " + resId, e);
+                    }
+                }
+
+                final Bitmap result = bitmap;
+                mMainHandler.post(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        dispatchLoaded(key, result);
+                    }
+                });
+            }
+        });
+    }
+
+    private void dispatchLoaded(Key key, Bitmap bitmap) {
+        ArrayList<Callback> callbacks;
+        synchronized (this) {
+            callbacks = mPendingCallbacks.remove(key);
+        }
+
+        if (callbacks == null) {
+            return;
+        }
+
+        for (int i = 0; i < callbacks.size(); i++) {
+            callbacks.get(i).onBitmapLoaded(bitmap);
+        }
+    }
+
+    private synchronized Bitmap get(Context context, Key key) {
+        registerComponentCallbacks(context);
+        Bitmap bitmap = mBitmapMap.get(key);
+        if (bitmap != null && !bitmap.isRecycled()) {
+            return bitmap;
+        }
+        return null;
+    }
+
+    private synchronized void put(Key key, Bitmap bitmap) {
+        int byteCount = getByteCount(bitmap);
+        if (byteCount > mMemoryBudget) {
+            return;
+        }
+
+        Bitmap previous = mBitmapMap.put(key, bitmap);
+        if (previous != null) {
+            mSize -= getByteCount(previous);
+        }
+        mSize += byteCount;
+        trimToSize(mMemoryBudget);
+    }
+
+    private synchronized void trimToSize(int maxSize) {
+        Iterator<Map.Entry<Key, Bitmap>> iterator = mBitmapMap.entrySet().iterator();
+        while (mSize > maxSize && iterator.hasNext()) {
+            mSize -= getByteCount(iterator.next().getValue());
+            iterator.remove();
+        }
+    }
+
+    private void registerComponentCallbacks(Context context) {
+        if (mIsComponentCallbacksRegistered) {
+            return;
+        }
+
+        Context appContext = context.getApplicationContext();
+        if (appContext != null) {
+            appContext.registerComponentCallbacks(mComponentCallbacks);
+            mIsComponentCallbacksRegistered = true;
+        }
+    }
+
+    private static int getByteCount(Bitmap bitmap) {
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+
+    /**
+     * load the bitmap by resource id, the bitmap is down sampled and the vector or shape drawable
+     * is rasterized to fit the target size, but never larger than the intrinsic size
+     * @param context the context
+     * @param resId the image resource id
+     * @param targetWidth the target width, 0 for the intrinsic size
+     * @param targetHeight the target height, 0 for the intrinsic size
+     * @return the bitmap, never be null
+     */
+    private static Bitmap loadBitmap(Context context, int resId, int targetWidth, int targetHeight) {
+        LoadingTrace.beginSection(LoadingTrace.SECTION_ROTATE_DECODE);
+        try {
+            return decodeBitmap(context, resId, targetWidth, targetHeight);
+        } finally {
+            LoadingTrace.endSection();
+        }
+    }
+
+    private static Bitmap decodeBitmap(Context context, int resId, int targetWidth, int targetHeight) {
+        boolean hasTargetSize = targetWidth > 0 && targetHeight > 0;
+        if (hasTargetSize) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeResource(context.getResources(), resId, options);
+            if (options.outWidth > 0 && options.outHeight > 0) {
+                //it is a bitmap resource, decode it with the sample size
+                options.inJustDecodeBounds = false;
+                options.inSampleSize = computeSampleSize(options.outWidth, options.outHeight, targetWidth, targetHeight);
+                Bitmap bitmap = BitmapFactory.decodeResource(context.getResources(), resId, options);
+                if (bitmap != null) {
+                    return bitmap;
+                }
+            }
+        }
+
+        Drawable drawable = ContextCompat.getDrawable(context, resId);
+        if (drawable == null) {
+            throw new RuntimeException("the resource with id " + resId + " is not found");
+        }
+
+        if (drawable instanceof BitmapDrawable) {
+            BitmapDrawable bitmapDrawable = (BitmapDrawable) drawable;
+            return bitmapDrawable.getBitmap();
+        }
+
+        int w = drawable.getIntrinsicWidth();
+        int h = drawable.getIntrinsicHeight();
+        if (hasTargetSize && w > 0 && h > 0) {
+            //keep the aspect ratio, as the same as the draw matrix
+            float scale = Math.min(Math.min(targetWidth * 1f / w, targetHeight * 1f / h), 1f);
+            w = Math.max((int) (w * scale + 0.5f), 1);
+            h = Math.max((int) (h * scale + 0.5f), 1);
+        }
+
+        Bitmap bitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        drawable.setBounds(0, 0, w, h);
+        drawable.draw(canvas);
+        return bitmap;
+    }
+
+    /**
+     * compute the max power of 2 sample size, the sampled size is still not smaller than the target size
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param targetWidth the target width
+     * @param targetHeight the target height
+     * @return the sample size
+     */
+    private static int computeSampleSize(int width, int height, int targetWidth, int targetHeight) {
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= targetWidth && height / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * the callback of {@link #loadBitmapAsync(Context, int, int, int, Callback)}
+     */
+    public interface Callback {
+
+        /**
+         * called in the main thread when the bitmap is loaded or the loading failed
+         * @param bitmap the loaded bitmap, null if the loading failed
+         */
+        void onBitmapLoaded(Bitmap bitmap);
+    }
+
+    /**
+     * the key of the cached bitmap, the target size is 0 for the intrinsic size
+     */
+    private static final class Key {
+
+        private final int mResId;
+        private final int mDensityDpi;
+        private final int mTargetWidth;
+        private final int mTargetHeight;
+
+        private Key(int resId, int densityDpi, int targetWidth, int targetHeight) {
+            mResId = resId;
+            mDensityDpi = densityDpi;
+            mTargetWidth = targetWidth;
+            mTargetHeight = targetHeight;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return mResId == key.mResId
+                    && mDensityDpi == key.mDensityDpi
+                    && mTargetWidth == key.mTargetWidth
+                    && mTargetHeight == key.mTargetHeight;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mResId;
+            result = 31 * result + mDensityDpi;
+            result = 31 * result + mTargetWidth;
+            result = 31 * result + mTargetHeight;
+            return result;
+        }
+    }
+}
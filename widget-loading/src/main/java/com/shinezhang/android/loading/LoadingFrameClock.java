@@ -0,0 +1,176 @@
+package com.shinezhang.android.loading;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * Created by ShineZhang on 2017/3/6.
+ *
+ * <p>the frame clock shared by all the loading views, the callbacks are driven by
+ * {@link Choreographer} so that every frame is aligned to vsync,
+ * on the devices below api 16 a {@link Handler} is used instead.
+ * <br/>all the methods should be called on the main thread.
+ */
+public final class LoadingFrameClock {
+
+    /**
+     * the min interval between two animation frames, it is about one vsync period of a 60Hz display
+     */
+    public static final long MIN_FRAME_INTERVAL_MILLIS          = 16L;
+
+    private static final long NANOS_PER_MILLIS                  = 1000000L;
+
+    /**
+     * the tolerance of the vsync jitter when the frames are throttled, so a 20fps target runs at every 3 frames of 60Hz
+     */
+    /* package */ static final long FRAME_INTERVAL_TOLERANCE_NANOS = MIN_FRAME_INTERVAL_MILLIS * NANOS_PER_MILLIS / 2;
+
+    private static LoadingFrameClock sInstance;
+
+    private final ArrayList<FrameCallback> mCallbacks           = new ArrayList<>();
+    private final ArrayList<FrameCallback> mDispatchingCallbacks = new ArrayList<>();
+    private final FrameDriver mFrameDriver;
+    private boolean mIsFrameScheduled;
+
+    /**
+     * the callback invoked when a new frame is coming
+     */
+    public interface FrameCallback {
+
+        /**
+         * called on the main thread when a new frame is coming
+         * @param frameTimeNanos the frame start time, in {@link System#nanoTime()} time base
+         */
+        void doFrame(long frameTimeNanos);
+    }
+
+    /**
+     * get the clock of the main thread
+     * @return the shared clock
+     */
+    public static LoadingFrameClock getInstance() {
+        if (sInstance == null) {
+            sInstance = new LoadingFrameClock();
+        }
+        return sInstance;
+    }
+
+    private LoadingFrameClock() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFrameDriver = new ChoreographerFrameDriver();
+        } else {
+            mFrameDriver = new HandlerFrameDriver();
+        }
+    }
+
+    /**
+     * convert the milliseconds to nanoseconds
+     * @param millis the time in milliseconds
+     * @return the time in nanoseconds
+     */
+    public static long millisToNanos(long millis) {
+        return millis * NANOS_PER_MILLIS;
+    }
+
+    /**
+     * convert the nanoseconds to milliseconds
+     * @param nanos the time in nanoseconds
+     * @return the time in milliseconds
+     */
+    public static long nanosToMillis(long nanos) {
+        return nanos / NANOS_PER_MILLIS;
+    }
+
+    /**
+     * post a callback to run on the next frame, the callback only runs once,
+     * post it again if you want the next frame
+     * @param callback the callback, if the callback is posted already, do nothing
+     */
+    public void postFrameCallback(FrameCallback callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("callback can not be null");
+        }
+
+        if (mCallbacks.contains(callback)) {
+            return;
+        }
+
+        mCallbacks.add(callback);
+        if (!mIsFrameScheduled) {
+            mIsFrameScheduled = true;
+            mFrameDriver.scheduleFrame();
+        }
+    }
+
+    /**
+     * remove a posted callback
+     * @param callback the callback, if the callback is not posted, do nothing
+     */
+    public void removeFrameCallback(FrameCallback callback) {
+        mCallbacks.remove(callback);
+    }
+
+    private void dispatchFrame(long frameTimeNanos) {
+        mIsFrameScheduled = false;
+
+        //callbacks posted during the dispatch will run on the next frame,
+        //copy them one by one, addAll() allocates a temporary array in each frame
+        final int callbackCount = mCallbacks.size();
+        for (int i = 0; i < callbackCount; i++) {
+            mDispatchingCallbacks.add(mCallbacks.get(i));
+        }
+        mCallbacks.clear();
+
+        final int size = mDispatchingCallbacks.size();
+        for (int i = 0; i < size; i++) {
+            mDispatchingCallbacks.get(i).doFrame(frameTimeNanos);
+        }
+        mDispatchingCallbacks.clear();
+    }
+
+    private interface FrameDriver {
+        void scheduleFrame();
+    }
+
+    @TargetApi(16)
+    private final class ChoreographerFrameDriver implements FrameDriver, Choreographer.FrameCallback {
+
+        private final Choreographer mChoreographer = Choreographer.getInstance();
+
+        @Override
+        public void scheduleFrame() {
+            mChoreographer.postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            dispatchFrame(frameTimeNanos);
+        }
+    }
+
+    private final class HandlerFrameDriver implements FrameDriver, Runnable {
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+        private long mLastFrameTimeMillis;
+
+        @Override
+        public void scheduleFrame() {
+            //keep the frames in a fixed cadence instead of drifting by the dispatch cost
+            long now = SystemClock.uptimeMillis();
+            long delay = Math.max(0L, MIN_FRAME_INTERVAL_MILLIS - (now - mLastFrameTimeMillis));
+            mHandler.postDelayed(this, delay);
+        }
+
+        @Override
+        public void run() {
+            mLastFrameTimeMillis = SystemClock.uptimeMillis();
+            dispatchFrame(System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.shinezhang.android.loading;
+
+/**
+ * Created by ShineZhang on 2017/3/18.
+ *
+ * <p>the frame statistics of a loading view, it counts the drawn frames, the draw duration,
+ * the late frames and the invalidations of the animation.
+ * <br/>the draw durations are counted by a fixed histogram of primitive counters,
+ * so the recording does not allocate and it is cheap enough to be left on in the release builds.
+ * <br/>all the methods should be called on the main thread.
+ *
+ * @see AbstractLoadingView#setFrameStatsEnabled(boolean)
+ */
+public final class LoadingFrameStats {
+
+    /**
+     * the width of each histogram bucket, 0.1ms
+     */
+    private static final long BUCKET_WIDTH_NANOS                    = 100000L;
+    /**
+     * the histogram covers [0, 20ms), the last bucket counts the longer draws
+     */
+    private static final int BUCKET_COUNT                           = 201;
+
+    private static final long DEFAULT_REPORT_INTERVAL_MILLIS        = 1000L;
+
+    private final int[] mArrayDrawBucket                            = new int[BUCKET_COUNT];
+    private long mFrameCount;
+    private long mTotalDrawNanos;
+    private long mMaxDrawNanos;
+
+    private long mInvalidationCount;
+    private long mLateFrameCount;
+    private long mAnimatingNanos;
+    private long mLastFrameTimeNanos                                = -1L;
+
+    private Listener mListener;
+    private long mReportIntervalNanos;
+    private long mNanosSinceReport;
+
+    /**
+     * the listener of the statistics, it is called periodically during the animation
+     */
+    public interface Listener {
+
+        /**
+         * called on the main thread when the report interval is passed
+         * @param stats the statistics since created or reset
+         */
+        void onFrameStats(Snapshot stats);
+    }
+
+    /* package */ LoadingFrameStats() {
+        mReportIntervalNanos = LoadingFrameClock.millisToNanos(DEFAULT_REPORT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * set the listener with the default report interval(1s)
+     * @param listener the listener, null to remove
+     */
+    public void setListener(Listener listener) {
+        setListener(listener, DEFAULT_REPORT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * set the listener
+     * @param listener the listener, null to remove
+     * @param reportIntervalMillis the animating time between the reports, the time during the pause is not counted
+     */
+    public void setListener(Listener listener, long reportIntervalMillis) {
+        if (reportIntervalMillis <= 0L) {
+            throw new IllegalArgumentException("report interval should be a positive number");
+        }
+
+        mListener = listener;
+        mReportIntervalNanos = LoadingFrameClock.millisToNanos(reportIntervalMillis);
+        mNanosSinceReport = 0L;
+    }
+
+    /**
+     * clear all the counters
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mArrayDrawBucket[i] = 0;
+        }
+        mFrameCount = 0L;
+        mTotalDrawNanos = 0L;
+        mMaxDrawNanos = 0L;
+        mInvalidationCount = 0L;
+        mLateFrameCount = 0L;
+        mAnimatingNanos = 0L;
+        mLastFrameTimeNanos = -1L;
+        mNanosSinceReport = 0L;
+    }
+
+    /**
+     * get the statistics since created or reset
+     * @return the new snapshot
+     */
+    public Snapshot getSnapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * record the duration of a frame drawing
+     * @param drawNanos the duration in nanoseconds
+     */
+    /* package */ void recordDraw(long drawNanos) {
+        int bucketIndex = (int) Math.min(drawNanos / BUCKET_WIDTH_NANOS, BUCKET_COUNT - 1);
+        mArrayDrawBucket[bucketIndex]++;
+        mFrameCount++;
+        mTotalDrawNanos += drawNanos;
+        if (drawNanos > mMaxDrawNanos) {
+            mMaxDrawNanos = drawNanos;
+        }
+    }
+
+    /**
+     * record an invalidation of the animation frame,
+     * the frame is late if the interval is longer than one and a half of the expected interval
+     * @param frameTimeNanos the frame time of the invalidation
+     * @param frameIntervalNanos the expected interval, the frame duration limited by the target fps and the policy
+     */
+    /* package */ void recordInvalidation(long frameTimeNanos, long frameIntervalNanos) {
+        mInvalidationCount++;
+        if (mLastFrameTimeNanos >= 0L) {
+            long intervalNanos = frameTimeNanos - mLastFrameTimeNanos;
+            if (intervalNanos > frameIntervalNanos + frameIntervalNanos / 2) {
+                mLateFrameCount++;
+            }
+
+            mAnimatingNanos += intervalNanos;
+            mNanosSinceReport += intervalNanos;
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+
+        if (mListener != null && mNanosSinceReport >= mReportIntervalNanos) {
+            mNanosSinceReport = 0L;
+            mListener.onFrameStats(getSnapshot());
+        }
+    }
+
+    /**
+     * forget the last invalidation time, the time until the next invalidation is not counted
+     */
+    /* package */ void pause() {
+        mLastFrameTimeNanos = -1L;
+    }
+
+    /**
+     * get the draw duration of the percentile by the histogram
+     * @param percentile the range is in (0, 1]
+     * @return the upper bound of the bucket in nanoseconds, 0 if no frame is drawn
+     */
+    private long computeDrawPercentileNanos(float percentile) {
+        if (mFrameCount == 0L) {
+            return 0L;
+        }
+
+        long targetCount = (long) Math.ceil(mFrameCount * (double) percentile);
+        long count = 0L;
+        for (int i = 0; i < BUCKET_COUNT - 1; i++) {
+            count += mArrayDrawBucket[i];
+            if (count >= targetCount) {
+                return Math.min((i + 1) * BUCKET_WIDTH_NANOS, mMaxDrawNanos);
+            }
+        }
+        return mMaxDrawNanos;
+    }
+
+    /**
+     * the immutable statistics at a moment
+     */
+    public static final class Snapshot {
+
+        private final long mFrameCount;
+        private final long mAverageDrawNanos;
+        private final long mP95DrawNanos;
+        private final long mP99DrawNanos;
+        private final long mMaxDrawNanos;
+        private final long mLateFrameCount;
+        private final long mInvalidationCount;
+        private final float mInvalidationsPerSecond;
+
+        private Snapshot(LoadingFrameStats stats) {
+            mFrameCount = stats.mFrameCount;
+            mAverageDrawNanos = (stats.mFrameCount == 0L) ? 0L : stats.mTotalDrawNanos / stats.mFrameCount;
+            mP95DrawNanos = stats.computeDrawPercentileNanos(0.95f);
+            mP99DrawNanos = stats.computeDrawPercentileNanos(0.99f);
+            mMaxDrawNanos = stats.mMaxDrawNanos;
+            mLateFrameCount = stats.mLateFrameCount;
+            mInvalidationCount = stats.mInvalidationCount;
+            mInvalidationsPerSecond = (stats.mAnimatingNanos == 0L) ? 0f
+                    : (float) (stats.mInvalidationCount * 1000000000d / stats.mAnimatingNanos);
+        }
+
+        /**
+         * get the count of the drawn frames
+         * @return the frame count
+         */
+        public long getFrameCount() {
+            return mFrameCount;
+        }
+
+        /**
+         * get the average draw duration
+         * @return the duration in nanoseconds
+         */
+        public long getAverageDrawNanos() {
+            return mAverageDrawNanos;
+        }
+
+        /**
+         * get the 95th percentile of the draw duration, the precision is 0.1ms
+         * @return the duration in nanoseconds
+         */
+        public long getP95DrawNanos() {
+            return mP95DrawNanos;
+        }
+
+        /**
+         * get the 99th percentile of the draw duration, the precision is 0.1ms
+         * @return the duration in nanoseconds
+         */
+        public long getP99DrawNanos() {
+            return mP99DrawNanos;
+        }
+
+        /**
+         * get the longest draw duration
+         * @return the duration in nanoseconds
+         */
+        public long getMaxDrawNanos() {
+            return mMaxDrawNanos;
+        }
+
+        /**
+         * get the count of the late frames, the interval of which is longer than
+         * one and a half of the frame duration limited by the target fps and the policy
+         * @return the late frame count
+         */
+        public long getLateFrameCount() {
+            return mLateFrameCount;
+        }
+
+        /**
+         * get the count of the invalidations caused by the animation
+         * @return the invalidation count
+         */
+        public long getInvalidationCount() {
+            return mInvalidationCount;
+        }
+
+        /**
+         * get the invalidations per second during the animating time, the time during the pause is not counted
+         * @return the invalidation rate
+         */
+        public float getInvalidationsPerSecond() {
+            return mInvalidationsPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return "LoadingFrameStats{frames=" + mFrameCount
+                    + ", avgDraw=" + mAverageDrawNanos / 1000L + "us"
+                    + ", p95Draw=" + mP95DrawNanos / 1000L + "us"
+                    + ", p99Draw=" + mP99DrawNanos / 1000L + "us"
+                    + ", maxDraw=" + mMaxDrawNanos / 1000L + "us"
+                    + ", lateFrames=" + mLateFrameCount
+                    + ", invalidations=" + mInvalidationCount
+                    + ", invalidationsPerSecond=" + mInvalidationsPerSecond + "}";
+        }
+    }
+}
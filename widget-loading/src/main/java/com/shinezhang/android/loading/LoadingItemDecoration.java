@@ -0,0 +1,236 @@
+package com.shinezhang.android.loading;
+
+import android.graphics.Canvas;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * Created by ShineZhang on 2017/3/20.
+ *
+ * <p>the batch renderer of the loading placeholders in a {@link RecyclerView},
+ * one renderer draws the placeholder over every loading item in one {@link #onDrawOver} pass,
+ * instead of a loading view with its own frame loop in each item.
+ * <br/>all the placeholders share the frame index, the paints and the geometry of the renderer,
+ * the renderer is laid out once in the placeholder size and translated to each item,
+ * and the recycler view is invalidated once per frame, so the cost does not grow with the loading items.
+ * <br/>the frame loop runs only when the recycler view is attached and a loading item is drawn,
+ * it stops by itself after the last loading item is loaded.
+ * <br/>the recyclerview-v7 library is not a dependency of this library, add it to use this class.
+ * <br/>all the methods should be called on the main thread.
+ */
+public class LoadingItemDecoration extends RecyclerView.ItemDecoration {
+
+    private static final long DEFAULT_INVALIDATE_DELAY_TIME         = 50L;
+
+    private final AbstractLoadingRenderer mRenderer;
+    private final LoadingLookup mLoadingLookup;
+    private final LoadingAnimationController mAnimationController;
+
+    private RecyclerView mRecyclerView;
+    private int mPlaceholderWidth                                   = -1;
+    private int mPlaceholderHeight                                  = -1;
+
+    private final View.OnAttachStateChangeListener mAttachStateListener = new View.OnAttachStateChangeListener() {
+
+        @Override
+        public void onViewAttachedToWindow(View v) {
+            //the frame loop is started by the next drawing if there is a loading item
+            v.invalidate();
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            mAnimationController.setHostVisible(false);
+        }
+    };
+
+    /**
+     * tell which items are loading
+     */
+    public interface LoadingLookup {
+
+        /**
+         * called for each visible item in each frame, it should be cheap
+         * @param adapterPosition the adapter position of the item
+         * @return true to draw the loading placeholder over the item
+         */
+        boolean isItemLoading(int adapterPosition);
+    }
+
+    /**
+     * create the decoration, call {@link #attachToRecyclerView(RecyclerView)} to use it
+     * @param renderer the renderer of the placeholders, e.g. {@link DoubleCircleLoadingRenderer},
+     *                 it should not be shared with the other hosts
+     * @param loadingLookup tell which items are loading
+     */
+    public LoadingItemDecoration(AbstractLoadingRenderer renderer, LoadingLookup loadingLookup) {
+        if (renderer == null) {
+            throw new IllegalArgumentException("renderer can not be null");
+        }
+
+        if (loadingLookup == null) {
+            throw new IllegalArgumentException("loading lookup can not be null");
+        }
+
+        mRenderer = renderer;
+        mLoadingLookup = loadingLookup;
+        mAnimationController = new LoadingAnimationController(new LoadingAnimationController.Callback() {
+
+            @Override
+            public void onAnimationFrame(long frameIndex) {
+                mRenderer.setFrameIndex(frameIndex);
+                if (mRecyclerView != null) {
+                    mRecyclerView.invalidate();
+                }
+            }
+        });
+        mAnimationController.setFrameDuration(DEFAULT_INVALIDATE_DELAY_TIME);
+    }
+
+    /**
+     * add this decoration to the recycler view, and remove it from the previous one
+     * @param recyclerView the recycler view, null to remove only
+     */
+    public void attachToRecyclerView(RecyclerView recyclerView) {
+        if (mRecyclerView == recyclerView) {
+            return;
+        }
+
+        if (mRecyclerView != null) {
+            mRecyclerView.removeItemDecoration(this);
+            mRecyclerView.removeOnAttachStateChangeListener(mAttachStateListener);
+            mAnimationController.setHostVisible(false);
+        }
+
+        mRecyclerView = recyclerView;
+        if (recyclerView != null) {
+            if (!recyclerView.isInEditMode()) {
+                LoadingAnimationPolicy.getInstance().init(recyclerView.getContext());
+            }
+            recyclerView.addItemDecoration(this);
+            recyclerView.addOnAttachStateChangeListener(mAttachStateListener);
+        }
+    }
+
+    /**
+     * get the renderer of the placeholders, the visual config can be changed by it,
+     * call {@link RecyclerView#invalidate()} after the change
+     * @return the renderer
+     */
+    public final AbstractLoadingRenderer getRenderer() {
+        return mRenderer;
+    }
+
+    /**
+     * set the size of the placeholders, they are in the center of the items
+     * @param width the width in pixel, negative number to use the intrinsic width of the renderer
+     * @param height the height in pixel, negative number to use the intrinsic height of the renderer
+     */
+    public void setPlaceholderSize(int width, int height) {
+        mPlaceholderWidth = width;
+        mPlaceholderHeight = height;
+        if (mRecyclerView != null) {
+            mRecyclerView.invalidate();
+        }
+    }
+
+    /**
+     * set the time of each animation step,
+     * the value smaller than {@link LoadingFrameClock#MIN_FRAME_INTERVAL_MILLIS} is treated as one frame
+     * @param delayTimeMills the unit is milliseconds, if negative number is set, do nothing.
+     */
+    public void setInvalidateDelayTime(long delayTimeMills) {
+        if (delayTimeMills < 0) {
+            return;
+        }
+
+        mAnimationController.setFrameDuration(delayTimeMills);
+    }
+
+    /**
+     * set the target frame rate of the placeholders, it is independent of the animation speed
+     * @param fps a positive number, or {@link LoadingAnimationPolicy#TARGET_FPS_UNLIMITED} by default
+     * @see LoadingAnimationController#setTargetFps(int)
+     */
+    public void setTargetFps(int fps) {
+        mAnimationController.setTargetFps(fps);
+    }
+
+    /**
+     * get the target frame rate of the placeholders
+     * @return the target fps
+     */
+    public int getTargetFps() {
+        return mAnimationController.getTargetFps();
+    }
+
+    /**
+     * start the animation of the placeholders, it is started by default
+     */
+    public void start() {
+        mAnimationController.start();
+    }
+
+    /**
+     * stop the animation of the placeholders, the current frame is kept
+     */
+    public void stop() {
+        mAnimationController.stop();
+    }
+
+    /**
+     * whether the animation of the placeholders is started
+     * @return true if started
+     */
+    public boolean isRunning() {
+        return mAnimationController.isRunning();
+    }
+
+    @Override
+    public void onDrawOver(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
+        LoadingTrace.beginSection(LoadingTrace.SECTION_ITEM_DECORATION_DRAW);
+        try {
+            boolean hasLoadingItem = drawPlaceholders(canvas, parent);
+            mAnimationController.setHostVisible(hasLoadingItem && parent == mRecyclerView);
+        } finally {
+            LoadingTrace.endSection();
+        }
+    }
+
+    /**
+     * draw the placeholder over each loading item
+     * @param canvas the canvas of the recycler view
+     * @param parent the recycler view
+     * @return true if any loading item is drawn
+     */
+    private boolean drawPlaceholders(Canvas canvas, RecyclerView parent) {
+        int placeholderWidth = (mPlaceholderWidth >= 0) ? mPlaceholderWidth : mRenderer.getIntrinsicWidth();
+        int placeholderHeight = (mPlaceholderHeight >= 0) ? mPlaceholderHeight : mRenderer.getIntrinsicHeight();
+        if (placeholderWidth <= 0 || placeholderHeight <= 0) {
+            return false;
+        }
+
+        //the geometry is computed only when the size is changed
+        mRenderer.setBounds(0, 0, placeholderWidth, placeholderHeight);
+
+        boolean hasLoadingItem = false;
+        int childCount = parent.getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            View child = parent.getChildAt(i);
+            int adapterPosition = parent.getChildAdapterPosition(child);
+            if (adapterPosition == RecyclerView.NO_POSITION || !mLoadingLookup.isItemLoading(adapterPosition)) {
+                continue;
+            }
+
+            hasLoadingItem = true;
+            float left = child.getLeft() + child.getTranslationX() + (child.getWidth() - placeholderWidth) * 0.5f;
+            float top = child.getTop() + child.getTranslationY() + (child.getHeight() - placeholderHeight) * 0.5f;
+
+            int saveCount = canvas.save();
+            canvas.translate(left, top);
+            mRenderer.draw(canvas);
+            canvas.restoreToCount(saveCount);
+        }
+        return hasLoadingItem;
+    }
+}
@@ -0,0 +1,289 @@
+package com.shinezhang.android.loading;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Process;
+import android.util.Log;
+
+import com.shinezhang.android.loading.core.LookupTable;
+import com.shinezhang.android.loading.shape.ShapeLoadingRenderer;
+import com.shinezhang.android.loading.shape.ShapeLoadingView;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Created by ShineZhang on 2017/3/21.
+ *
+ * <p>build the process wide caches of the loadings in background, e.g. in {@link android.app.Application#onCreate()},
+ * so the first loading on a cold start screen finds them ready instead of building them in the first frame.
+ * <br/>it warms the shared lookup tables, the interpolated tracks, the shape paths, the pre-rendered frames
+ * and the decoded images of the added configs, the caches are shared by all the loadings with the same config,
+ * so the configs and the sizes should be the same as the loadings on the screen.
+ * <pre>
+ * new LoadingPrewarmer(context)
+ *         .addShapeLoading(new LoadingPrewarmer.ShapeConfig(width, height)
+ *                 .setPolygonSideCountAndRotateDegree(5, 180f)
+ *                 .setFrameCacheEnabled(true))
+ *         .addRotateImage(R.drawable.ic_rotate_loading)
+ *         .start();
+ * </pre>
+ * the tasks are run in order on the executor, each task builds its own renderer from the config,
+ * so nothing is shared with the main thread but the thread safe caches, they may still be evicted by their memory budgets.
+ */
+public final class LoadingPrewarmer {
+
+    private static final String TAG                                 = "LoadingPrewarmer";
+
+    private final Context mAppContext;
+    private final ArrayList<Runnable> mTasks                        = new ArrayList<Runnable>();
+    private Executor mExecutor;
+    private boolean mIsStarted;
+
+    /**
+     * create the prewarmer
+     * @param context the context, the application context is kept, the images are decoded by the density of it
+     */
+    public LoadingPrewarmer(Context context) {
+        Context appContext = context.getApplicationContext();
+        mAppContext = (appContext == null) ? context : appContext;
+    }
+
+    /**
+     * set the executor to run the tasks, a background thread is started for them by default
+     * @param executor the executor, null to use the default thread
+     * @return this prewarmer
+     */
+    public LoadingPrewarmer setExecutor(Executor executor) {
+        mExecutor = executor;
+        return this;
+    }
+
+    /**
+     * build the shapes, the track and the geometry or the frames of a shape loading in background
+     * @param config the config of the loading, it is copied, the later changes of it are not applied
+     * @return this prewarmer
+     * @see ShapeLoadingRenderer#prepare()
+     */
+    public LoadingPrewarmer addShapeLoading(ShapeConfig config) {
+        final ShapeConfig configCopy = new ShapeConfig(config);
+        addTask(new Runnable() {
+
+            @Override
+            public void run() {
+                ShapeLoadingRenderer renderer = new ShapeLoadingRenderer(mAppContext);
+                configCopy.applyTo(renderer);
+                renderer.prepare();
+                //the caches are released to the shared pools, they are kept until the budgets are exceeded
+                renderer.releaseCaches();
+            }
+        });
+        return this;
+    }
+
+    /**
+     * decode the rotate image into {@link LoadingBitmapCache} in background,
+     * it is the same bitmap as {@link RotateLoadingView#setImageResource(int)}
+     * @param resId the image resource id
+     * @return this prewarmer
+     */
+    public LoadingPrewarmer addRotateImage(final int resId) {
+        addTask(new Runnable() {
+
+            @Override
+            public void run() {
+                LoadingBitmapCache.getInstance().getBitmap(mAppContext, resId);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * decode the rotate image and render the sprite frames at the size in background,
+     * they are used by {@link RotateLoadingView} with the sprite frames enabled
+     * @param resId the image resource id
+     * @param rotateStep the rotate step of each frame, it should divide 360 evenly
+     * @param width the width of the content area of the loading view
+     * @param height the height of the content area of the loading view
+     * @return this prewarmer
+     * @see RotateLoadingRenderer#setSpriteEnabled(boolean)
+     */
+    public LoadingPrewarmer addRotateSprite(final int resId, final float rotateStep, final int width, final int height) {
+        addTask(new Runnable() {
+
+            @Override
+            public void run() {
+                Bitmap bitmap = LoadingBitmapCache.getInstance().getBitmap(mAppContext, resId);
+                RotateLoadingRenderer renderer = new RotateLoadingRenderer(mAppContext);
+                renderer.setRotateStep(rotateStep);
+                renderer.setSpriteEnabled(true);
+                renderer.setBitmap(bitmap);
+                renderer.setBounds(0, 0, width, height);
+                renderer.prepare();
+                renderer.releaseCaches();
+            }
+        });
+        return this;
+    }
+
+    private void addTask(Runnable task) {
+        if (mIsStarted) {
+            throw new IllegalStateException("the prewarmer is started");
+        }
+
+        mTasks.add(task);
+    }
+
+    /**
+     * run all the added tasks in background, it can only be called once
+     */
+    public void start() {
+        if (mIsStarted) {
+            throw new IllegalStateException("the prewarmer is started");
+        }
+
+        mIsStarted = true;
+        final Runnable[] arrayTask = mTasks.toArray(new Runnable[mTasks.size()]);
+        mTasks.clear();
+
+        final Runnable prewarmRunnable = new Runnable() {
+
+            @Override
+            public void run() {
+                LoadingTrace.beginSection(LoadingTrace.SECTION_PREWARM);
+                try {
+                    //load the shared trigonometric table
+                    LookupTable.sinDegrees(0f);
+                    for (Runnable task : arrayTask) {
+                        runTask(task);
+                    }
+                } finally {
+                    LoadingTrace.endSection();
+                }
+            }
+        };
+
+        if (mExecutor != null) {
+            mExecutor.execute(prewarmRunnable);
+        } else {
+            Thread thread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    prewarmRunnable.run();
+                }
+            }, TAG);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private static void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            //the loading builds it again on demand
+            Log.w(TAG, "prewarm task failed", e);
+        }
+    }
+
+    /**
+     * the config of a shape loading to prewarm, it mirrors the attributes of {@link ShapeLoadingView}
+     * which the shared caches depend on, the attributes not set are the defaults of {@link ShapeLoadingView}
+     */
+    public static final class ShapeConfig {
+
+        private final int mWidth;
+        private final int mHeight;
+        //the invalid values are ignored by the renderer, so the defaults are kept
+        private int mMaxAllowPolygonSideCount                       = -1;
+        private float mMaxAllowRotateDegree;
+        private float mInterpolatorFactor                           = -1f;
+        private int mShadowHeight                                   = -1;
+        private int mShadowTopSpace                                 = -1;
+        private boolean mIsFrameCacheEnabled;
+        private boolean mIsVertexDrawEnabled;
+
+        /**
+         * create the config of the size
+         * @param width the width of the content area of the loading view
+         * @param height the height of the content area of the loading view
+         */
+        public ShapeConfig(int width, int height) {
+            mWidth = width;
+            mHeight = height;
+        }
+
+        private ShapeConfig(ShapeConfig config) {
+            mWidth = config.mWidth;
+            mHeight = config.mHeight;
+            mMaxAllowPolygonSideCount = config.mMaxAllowPolygonSideCount;
+            mMaxAllowRotateDegree = config.mMaxAllowRotateDegree;
+            mInterpolatorFactor = config.mInterpolatorFactor;
+            mShadowHeight = config.mShadowHeight;
+            mShadowTopSpace = config.mShadowTopSpace;
+            mIsFrameCacheEnabled = config.mIsFrameCacheEnabled;
+            mIsVertexDrawEnabled = config.mIsVertexDrawEnabled;
+        }
+
+        /**
+         * @see ShapeLoadingView#setPolygonSideCountAndRotateDegree(int, float)
+         */
+        public ShapeConfig setPolygonSideCountAndRotateDegree(int maxAllowPolygonSideCount, float maxAllowRotateDegree) {
+            mMaxAllowPolygonSideCount = maxAllowPolygonSideCount;
+            mMaxAllowRotateDegree = maxAllowRotateDegree;
+            return this;
+        }
+
+        /**
+         * @see ShapeLoadingView#setInterpolatorFactor(float)
+         */
+        public ShapeConfig setInterpolatorFactor(float interpolatorFactor) {
+            mInterpolatorFactor = interpolatorFactor;
+            return this;
+        }
+
+        /**
+         * @see ShapeLoadingView#setShadowHeight(int)
+         */
+        public ShapeConfig setShadowHeight(int height) {
+            mShadowHeight = height;
+            return this;
+        }
+
+        /**
+         * @see ShapeLoadingView#setShadowTopSpace(int)
+         */
+        public ShapeConfig setShadowTopSpace(int space) {
+            mShadowTopSpace = space;
+            return this;
+        }
+
+        /**
+         * @see ShapeLoadingView#setFrameCacheEnabled(boolean)
+         */
+        public ShapeConfig setFrameCacheEnabled(boolean enabled) {
+            mIsFrameCacheEnabled = enabled;
+            return this;
+        }
+
+        /**
+         * @see ShapeLoadingView#setVertexDrawEnabled(boolean)
+         */
+        public ShapeConfig setVertexDrawEnabled(boolean enabled) {
+            mIsVertexDrawEnabled = enabled;
+            return this;
+        }
+
+        private void applyTo(ShapeLoadingRenderer renderer) {
+            renderer.setShadowHeight(mShadowHeight);
+            renderer.setShadowTopSpace(mShadowTopSpace);
+            renderer.setPolygonSideCountAndRotateDegree(mMaxAllowPolygonSideCount, mMaxAllowRotateDegree);
+            renderer.setInterpolatorFactor(mInterpolatorFactor);
+            renderer.setFrameCacheEnabled(mIsFrameCacheEnabled);
+            renderer.setVertexDrawEnabled(mIsVertexDrawEnabled);
+            renderer.setBounds(0, 0, mWidth, mHeight);
+        }
+    }
+}
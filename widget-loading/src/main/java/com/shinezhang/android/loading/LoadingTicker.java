@@ -0,0 +1,187 @@
+package com.shinezhang.android.loading;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+
+/**
+ * Created by ShineZhang on 2017/3/8.
+ *
+ * <p>the process-wide ticker of the running loading animations,
+ * all the registered clients are advanced by one {@link LoadingFrameClock} callback per frame,
+ * so the main thread wakes up once per frame no matter how many loading views are running.
+ * <br/>the clients are kept by weak references, a client which is not unregistered will not leak.
+ * <br/>the frames are throttled by {@link LoadingAnimationPolicy}, the ticks are skipped until the min interval passed,
+ * no frame is posted when the policy is static.
+ * <br/>all the methods should be called on the main thread.
+ */
+public final class LoadingTicker {
+
+    private static LoadingTicker sInstance;
+
+    private final ArrayList<WeakReference<Client>> mClients = new ArrayList<>();
+    private Client[] mDispatchingClients = new Client[16];
+    private boolean mIsFrameCallbackPosted;
+    private long mLastDispatchTimeNanos = -1L;
+
+    private final LoadingFrameClock.FrameCallback mFrameCallback = new LoadingFrameClock.FrameCallback() {
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mIsFrameCallbackPosted = false;
+            dispatchTick(frameTimeNanos);
+        }
+    };
+
+    /**
+     * the client advanced by the ticker on every frame
+     */
+    /* package */ interface Client {
+
+        /**
+         * called once per frame on the main thread
+         * @param frameTimeNanos the frame time, in {@link System#nanoTime()} time base
+         */
+        void onTick(long frameTimeNanos);
+    }
+
+    /**
+     * get the ticker of the main thread
+     * @return the shared ticker
+     */
+    public static LoadingTicker getInstance() {
+        if (sInstance == null) {
+            sInstance = new LoadingTicker();
+        }
+        return sInstance;
+    }
+
+    private LoadingTicker() {
+    }
+
+    /**
+     * get the count of the registered clients, usually it is the count of the running loading animations
+     * @return the registered count
+     */
+    public int getRegisteredCount() {
+        return mClients.size();
+    }
+
+    /**
+     * register a client, it will be ticked from the next frame
+     * @param client the client, if it is registered already, do nothing
+     */
+    /* package */ void register(Client client) {
+        if (indexOf(client) >= 0) {
+            return;
+        }
+
+        mClients.add(new WeakReference<>(client));
+        LoadingTrace.setCounter(LoadingTrace.COUNTER_ACTIVE_LOADINGS, mClients.size());
+        scheduleFrame();
+    }
+
+    /**
+     * called when the frame rate policy is changed, the frame loop is resumed or paused
+     */
+    /* package */ void onPolicyChanged() {
+        if (LoadingAnimationPolicy.getInstance().getMinFrameIntervalNanos() == Long.MAX_VALUE) {
+            if (mIsFrameCallbackPosted) {
+                mIsFrameCallbackPosted = false;
+                LoadingFrameClock.getInstance().removeFrameCallback(mFrameCallback);
+            }
+            return;
+        }
+
+        scheduleFrame();
+    }
+
+    private void scheduleFrame() {
+        if (mIsFrameCallbackPosted || mClients.isEmpty()) {
+            return;
+        }
+
+        if (LoadingAnimationPolicy.getInstance().getMinFrameIntervalNanos() == Long.MAX_VALUE) {
+            //the animations are static, the current frames are kept
+            return;
+        }
+
+        mIsFrameCallbackPosted = true;
+        LoadingFrameClock.getInstance().postFrameCallback(mFrameCallback);
+    }
+
+    /**
+     * unregister a client, it will not be ticked any more, including the current frame
+     * @param client the client, if it is not registered, do nothing
+     */
+    /* package */ void unregister(Client client) {
+        int index = indexOf(client);
+        if (index >= 0) {
+            mClients.remove(index);
+            LoadingTrace.setCounter(LoadingTrace.COUNTER_ACTIVE_LOADINGS, mClients.size());
+        }
+
+        //the client may be waiting in the dispatching array
+        for (int i = 0; i < mDispatchingClients.length; i++) {
+            if (mDispatchingClients[i] == client) {
+                mDispatchingClients[i] = null;
+            }
+        }
+
+        if (mClients.isEmpty() && mIsFrameCallbackPosted) {
+            mIsFrameCallbackPosted = false;
+            LoadingFrameClock.getInstance().removeFrameCallback(mFrameCallback);
+        }
+    }
+
+    private int indexOf(Client client) {
+        for (int i = mClients.size() - 1; i >= 0; i--) {
+            if (mClients.get(i).get() == client) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void dispatchTick(long frameTimeNanos) {
+        long minIntervalNanos = LoadingAnimationPolicy.getInstance().getMinFrameIntervalNanos();
+        if (minIntervalNanos > 0L && mLastDispatchTimeNanos >= 0L
+                && frameTimeNanos - mLastDispatchTimeNanos + LoadingFrameClock.FRAME_INTERVAL_TOLERANCE_NANOS < minIntervalNanos) {
+            //throttled by the policy, wait for the next frame
+            scheduleFrame();
+            return;
+        }
+        mLastDispatchTimeNanos = frameTimeNanos;
+
+        //collect the live clients first, the clients may register or unregister during the dispatch
+        int count = 0;
+        boolean isClientCollected = false;
+        for (int i = mClients.size() - 1; i >= 0; i--) {
+            Client client = mClients.get(i).get();
+            if (client == null) {
+                mClients.remove(i);
+                isClientCollected = true;
+                continue;
+            }
+
+            if (count == mDispatchingClients.length) {
+                Client[] clients = new Client[count * 2];
+                System.arraycopy(mDispatchingClients, 0, clients, 0, count);
+                mDispatchingClients = clients;
+            }
+            mDispatchingClients[count++] = client;
+        }
+        if (isClientCollected) {
+            LoadingTrace.setCounter(LoadingTrace.COUNTER_ACTIVE_LOADINGS, mClients.size());
+        }
+
+        scheduleFrame();
+
+        for (int i = 0; i < count; i++) {
+            Client client = mDispatchingClients[i];
+            if (client != null) {
+                mDispatchingClients[i] = null;
+                client.onTick(frameTimeNanos);
+            }
+        }
+    }
+}
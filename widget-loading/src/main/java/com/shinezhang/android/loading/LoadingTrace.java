@@ -0,0 +1,139 @@
+package com.shinezhang.android.loading;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+import android.util.Log;
+
+import java.lang.reflect.Method;
+
+/**
+ * Created by ShineZhang on 2017/3/18.
+ *
+ * <p>the systrace sections and counters of the loading widgets, so the frame time of the loadings
+ * can be told apart from the other views in systrace or perfetto.
+ * <br/>it is disabled by default, all the methods return at once by a static switch when disabled,
+ * the sections are recorded on JELLY_BEAN_MR2 and above.
+ */
+public final class LoadingTrace {
+
+    private static final String TAG                                 = "LoadingTrace";
+
+    public static final String SECTION_SHAPE_DRAW                   = "ShapeLoadingView#onDraw";
+    public static final String SECTION_DOUBLE_CIRCLE_DRAW           = "DoubleCircleLoadingView#onDraw";
+    public static final String SECTION_MULTI_DOT_DRAW               = "MultiDotLoadingView#onDraw";
+    public static final String SECTION_ROTATE_DRAW                  = "RotateLoadingView#onDraw";
+    public static final String SECTION_ITEM_DECORATION_DRAW         = "LoadingItemDecoration#onDrawOver";
+    public static final String SECTION_SHAPE_PATH                   = "Loading#initShapePath";
+    public static final String SECTION_SHAPE_FRAME_ATLAS            = "Loading#renderShapeFrames";
+    public static final String SECTION_ROTATE_DECODE                = "Loading#decodeRotateBitmap";
+    public static final String SECTION_ROTATE_MATRIX                = "Loading#initRotateMatrix";
+    public static final String SECTION_ROTATE_SPRITE                = "Loading#renderRotateSprite";
+    public static final String SECTION_PREWARM                      = "Loading#prewarm";
+
+    public static final String COUNTER_ACTIVE_LOADINGS              = "ActiveLoadings";
+
+    private static final long DEFAULT_TRACE_TAG_APP                 = 1L << 12;
+
+    private static volatile boolean sEnabled;
+
+    private static boolean sIsCounterMethodResolved;
+    private static Method sCounterMethod;
+    private static long sTraceTagApp;
+
+    private LoadingTrace() {
+    }
+
+    /**
+     * enable or disable the trace sections and counters, it is disabled by default
+     * @param enabled true to enable
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    /**
+     * whether the trace sections and counters are enabled
+     * @return true if enabled
+     */
+    public static boolean isEnabled() {
+        return sEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    /**
+     * begin a trace section on current thread, it should be ended by {@link #endSection()} on the same thread
+     * @param sectionName the section name, one of the constant names
+     */
+    @TargetApi(18)
+    public static void beginSection(String sectionName) {
+        if (isEnabled()) {
+            Trace.beginSection(sectionName);
+        }
+    }
+
+    /**
+     * end the last section begun on current thread,
+     * the switch should not be changed between the begin and the end, it is only changed during the debugging
+     */
+    @TargetApi(18)
+    public static void endSection() {
+        if (isEnabled()) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * set the value of a trace counter, the counter is drawn as a track in systrace or perfetto
+     * @param counterName the counter name, one of the constant names
+     * @param value the counter value
+     */
+    public static void setCounter(String counterName, int value) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        Method counterMethod = resolveCounterMethod();
+        if (counterMethod == null) {
+            return;
+        }
+
+        try {
+            if (Build.VERSION.SDK_INT >= 29) {
+                counterMethod.invoke(null, counterName, (long) value);
+            } else {
+                counterMethod.invoke(null, sTraceTagApp, counterName, value);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "set trace counter failed", e);
+            sCounterMethod = null;
+        }
+    }
+
+    /**
+     * the counter is public since Q, it is a hidden method before
+     * @return the method, null if not found
+     */
+    private static Method resolveCounterMethod() {
+        if (sIsCounterMethodResolved) {
+            return sCounterMethod;
+        }
+
+        sIsCounterMethodResolved = true;
+        try {
+            if (Build.VERSION.SDK_INT >= 29) {
+                sCounterMethod = Trace.class.getMethod("setCounter", String.class, long.class);
+            } else {
+                try {
+                    sTraceTagApp = Trace.class.getField("TRACE_TAG_APP").getLong(null);
+                } catch (Exception e) {
+                    sTraceTagApp = DEFAULT_TRACE_TAG_APP;
+                }
+                sCounterMethod = Trace.class.getMethod("traceCounter", long.class, String.class, int.class);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "trace counter is not available", e);
+            sCounterMethod = null;
+        }
+        return sCounterMethod;
+    }
+}
@@ -0,0 +1,84 @@
+package com.shinezhang.android.loading;
+
+import android.content.Context;
+
+/**
+ * Created by ShineZhang on 2017/3/20.
+ *
+ * <p>the drawable version of {@link MultiDotLoadingView}
+ */
+public class MultiDotLoadingDrawable extends AbstractLoadingDrawable {
+
+    private final MultiDotLoadingRenderer mRenderer;
+
+    public MultiDotLoadingDrawable(Context context) {
+        this(new MultiDotLoadingRenderer(context));
+    }
+
+    private MultiDotLoadingDrawable(MultiDotLoadingRenderer renderer) {
+        super(renderer);
+        mRenderer = renderer;
+        setInvalidateDelayTime(MultiDotLoadingRenderer.DEFAULT_INVALIDATE_DELAY_TIME);
+    }
+
+    /**
+     * set the dot count, the colors are kept for the existing dots, the new dots use the default colors,
+     * the phases are reset to spread evenly in half a cycle
+     * @param count the dot count, it should be a positive number
+     */
+    public final void setDotCount(int count) {
+        mRenderer.setDotCount(count);
+        super.invalidateSelf();
+    }
+
+    /**
+     * set the colors of the dots, the colors are repeated if there are less colors than the dots
+     * @param colors the colors, it should not be empty
+     */
+    public final void setDotColors(int... colors) {
+        mRenderer.setDotColors(colors);
+        super.invalidateSelf();
+    }
+
+    /**
+     * set the color of a dot
+     * @param index the index of the dot from the left
+     * @param color the color of the dot
+     */
+    public final void setDotColor(int index, int color) {
+        mRenderer.setDotColor(index, color);
+        super.invalidateSelf();
+    }
+
+    /**
+     * set the phases of the dots by a fixed step, the phase of each dot is the index multiplied by the step
+     * @param degree the phase step between the adjacent dots, it is rounded to 15 degrees
+     */
+    public final void setPhaseStep(float degree) {
+        mRenderer.setPhaseStep(degree);
+        super.invalidateSelf();
+    }
+
+    /**
+     * set the phase of a dot, the dots of the same phase zoom in and out together
+     * @param index the index of the dot from the left
+     * @param degree the phase, it is rounded to 15 degrees
+     */
+    public final void setDotPhase(int index, float degree) {
+        mRenderer.setDotPhase(index, degree);
+        super.invalidateSelf();
+    }
+
+    /**
+     * set the time of each animation step,
+     * the value smaller than {@link LoadingFrameClock#MIN_FRAME_INTERVAL_MILLIS} is treated as one frame
+     * @param delayTimeMills the unit is milliseconds, if negative number is set, do nothing.
+     */
+    public final void setInvalidateDelayTime(long delayTimeMills) {
+        if (delayTimeMills < 0) {
+            return;
+        }
+
+        super.getAnimationController().setFrameDuration(delayTimeMills);
+    }
+}
@@ -0,0 +1,387 @@
+package com.shinezhang.android.loading;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+
+import com.shinezhang.android.loading.core.LookupTable;
+
+import java.util.Arrays;
+
+/**
+ * Created by ShineZhang on 2017/3/20.
+ *
+ * <p>the renderer of the multi dot loading, the dots are in a row and zoom in and out by their phases,
+ * it is the N dot version of {@link DoubleCircleLoadingRenderer}.
+ * <br/>the dots are drawn as the round points, all the dots of the same color and the same radius are drawn
+ * by one {@link Canvas#drawPoints(float[], int, int, Paint)}, the phases are rounded to the degree step,
+ * so there are only a few distinct radii in a frame and the draw call count does not grow with the dot count.
+ *
+ * @see MultiDotLoadingView
+ * @see MultiDotLoadingDrawable
+ */
+public final class MultiDotLoadingRenderer extends AbstractLoadingRenderer {
+
+    /* package */ static final long DEFAULT_INVALIDATE_DELAY_TIME   = 50L;
+
+    /* package */ static final int DEFAULT_DOT_COUNT                = 3;
+    /* package */ static final int[] DEFAULT_DOT_COLORS             = {0xffff5400, 0xffa9a9a9};
+
+    /**
+     * the max radius is 0.4 of the width of each dot, so there is a gap between the largest dots
+     */
+    /* package */ static final float DOT_RADIUS_RATIO               = 0.4f;
+
+    private static final int DEFAULT_DIMEN_DP_DOT_WIDTH             = 25;
+
+    /**
+     * make sure the value divides 180 evenly, the radius of the degree and its supplementary angle are the same
+     */
+    private static final int DEGREE_STEP                            = 15;
+
+    private static final int ARRAY_VALUES_LENGTH;
+    /**
+     * the count of the distinct radii, the radius is decided by the |sin| of the degree in [0, 90]
+     */
+    private static final int RADIUS_LEVEL_COUNT;
+
+    private final int mDimenDefaultDotWidth;
+
+    private final Paint mPaint;
+    private int mAlpha                                              = 0xff;
+
+    private int mDotCount;
+    private int[] mArrayDotColor;
+    private float[] mArrayDotPhase;
+    /**
+     * the phase of each dot in the count of the degree step
+     */
+    private int[] mArrayDotPhaseIndex;
+
+    /**
+     * the dots of the same color are in the same group, the group index of each dot
+     */
+    private int[] mArrayDotColorGroup;
+    private int[] mArrayGroupColor;
+    private int mColorGroupCount;
+
+    private float[] mArrayDotCenterX;
+    private float mDotCenterY;
+    private float mMaxRadius;
+    private final float[] mArrayLevelRadius                         = new float[RADIUS_LEVEL_COUNT];
+
+    /**
+     * the points of all the dots, the points of each batch are continuous, it is reused in each frame
+     */
+    private float[] mArrayPoint;
+    /**
+     * the batch of each (color group, radius level), the count and the end of the points in each frame
+     */
+    private int[] mArrayBatchCount;
+    private int[] mArrayBatchEnd;
+
+    private int mCurValueIndex = 0;
+
+    public MultiDotLoadingRenderer(Context context) {
+        DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
+        mDimenDefaultDotWidth = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_DIMEN_DP_DOT_WIDTH, displayMetrics);
+
+        mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mPaint.setStyle(Paint.Style.STROKE);
+        mPaint.setStrokeCap(Paint.Cap.ROUND);
+
+        setDotCount(DEFAULT_DOT_COUNT);
+    }
+
+    /**
+     * get the default width of each dot, it is used when the size is not limited
+     * @return the width in pixel
+     */
+    public int getDefaultDotWidth() {
+        return mDimenDefaultDotWidth;
+    }
+
+    /**
+     * get the default width of all the dots, it is used when the size is not limited
+     * @return the width in pixel
+     */
+    public int getDefaultWidth() {
+        return mDimenDefaultDotWidth * mDotCount;
+    }
+
+    /**
+     * set the dot count, the colors are kept for the existing dots, the new dots use the default colors,
+     * the phases are reset to spread evenly in half a cycle
+     * @param count the dot count, it should be a positive number
+     */
+    public void setDotCount(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("dot count should be a positive number");
+        }
+
+        if (count == mDotCount) {
+            return;
+        }
+
+        int[] arrayDotColor = new int[count];
+        for (int i = 0; i < count; i++) {
+            arrayDotColor[i] = (i < mDotCount) ? mArrayDotColor[i] : DEFAULT_DOT_COLORS[i % DEFAULT_DOT_COLORS.length];
+        }
+
+        mDotCount = count;
+        mArrayDotColor = arrayDotColor;
+        mArrayDotPhase = new float[count];
+        mArrayDotPhaseIndex = new int[count];
+        mArrayDotColorGroup = new int[count];
+        mArrayGroupColor = new int[count];
+        mArrayDotCenterX = new float[count];
+        mArrayPoint = new float[count * 2];
+        mArrayBatchCount = new int[count * RADIUS_LEVEL_COUNT];
+        mArrayBatchEnd = new int[count * RADIUS_LEVEL_COUNT];
+
+        setPhaseStep(180f / count);
+        updateColorGroups();
+        layoutDots();
+    }
+
+    /**
+     * get the dot count
+     * @return the dot count
+     */
+    public int getDotCount() {
+        return mDotCount;
+    }
+
+    /**
+     * set the colors of the dots, the colors are repeated if there are less colors than the dots
+     * @param colors the colors, it should not be empty
+     */
+    public void setDotColors(int... colors) {
+        if (colors == null || colors.length == 0) {
+            throw new IllegalArgumentException("colors can not be empty");
+        }
+
+        for (int i = 0; i < mDotCount; i++) {
+            mArrayDotColor[i] = colors[i % colors.length];
+        }
+        updateColorGroups();
+    }
+
+    /**
+     * set the color of a dot
+     * @param index the index of the dot from the left
+     * @param color the color of the dot
+     */
+    public void setDotColor(int index, int color) {
+        checkDotIndex(index);
+        if (mArrayDotColor[index] == color) {
+            return;
+        }
+
+        mArrayDotColor[index] = color;
+        updateColorGroups();
+    }
+
+    /**
+     * get the color of a dot
+     * @param index the index of the dot from the left
+     * @return the color of the dot
+     */
+    public int getDotColor(int index) {
+        checkDotIndex(index);
+        return mArrayDotColor[index];
+    }
+
+    /**
+     * set the phases of the dots by a fixed step, the phase of each dot is the index multiplied by the step
+     * @param degree the phase step between the adjacent dots, it is rounded to 15 degrees
+     */
+    public void setPhaseStep(float degree) {
+        for (int i = 0; i < mDotCount; i++) {
+            setDotPhaseInternal(i, (float) ((i * (double) degree) % 360d));
+        }
+    }
+
+    /**
+     * set the phase of a dot, the dots of the same phase zoom in and out together
+     * @param index the index of the dot from the left
+     * @param degree the phase, it is rounded to 15 degrees
+     */
+    public void setDotPhase(int index, float degree) {
+        checkDotIndex(index);
+        setDotPhaseInternal(index, degree);
+    }
+
+    /**
+     * get the phase of a dot
+     * @param index the index of the dot from the left
+     * @return the phase in degree, as it is set
+     */
+    public float getDotPhase(int index) {
+        checkDotIndex(index);
+        return mArrayDotPhase[index];
+    }
+
+    private void setDotPhaseInternal(int index, float degree) {
+        mArrayDotPhase[index] = degree;
+        int phaseIndex = Math.round(degree / DEGREE_STEP) % ARRAY_VALUES_LENGTH;
+        mArrayDotPhaseIndex[index] = (phaseIndex < 0) ? phaseIndex + ARRAY_VALUES_LENGTH : phaseIndex;
+    }
+
+    private void checkDotIndex(int index) {
+        if (index < 0 || index >= mDotCount) {
+            throw new IndexOutOfBoundsException("dot index " + index + " is out of [0, " + mDotCount + ")");
+        }
+    }
+
+    /**
+     * group the dots by the colors, it is done when the colors are changed instead of in each frame
+     */
+    private void updateColorGroups() {
+        mColorGroupCount = 0;
+        for (int i = 0; i < mDotCount; i++) {
+            int color = mArrayDotColor[i];
+            int group = 0;
+            while (group < mColorGroupCount && mArrayGroupColor[group] != color) {
+                group++;
+            }
+
+            if (group == mColorGroupCount) {
+                mArrayGroupColor[group] = color;
+                mColorGroupCount++;
+            }
+            mArrayDotColorGroup[i] = group;
+        }
+    }
+
+    @Override
+    protected void onBoundsChanged(Rect bounds) {
+        layoutDots();
+    }
+
+    /**
+     * compute the centers of the dots and the radius of each level, they are kept until the bounds are changed
+     */
+    private void layoutDots() {
+        Rect bounds = super.getBounds();
+        float dotWidth = bounds.width() * 1f / mDotCount;
+        float halfHeight = bounds.height() * 0.5f;
+        for (int i = 0; i < mDotCount; i++) {
+            mArrayDotCenterX[i] = bounds.left + dotWidth * (i + 0.5f);
+        }
+        mDotCenterY = bounds.top + halfHeight;
+        mMaxRadius = Math.max(Math.min(dotWidth * DOT_RADIUS_RATIO, halfHeight), 0f);
+
+        //the dot radius is 0.75~1 of max radius, make sure all the values are positive number
+        for (int i = 0; i < RADIUS_LEVEL_COUNT; i++) {
+            mArrayLevelRadius[i] = mMaxRadius * (0.75f + Math.abs(LookupTable.sinDegrees(DEGREE_STEP * i)) * 0.25f);
+        }
+    }
+
+    @Override
+    protected void onFrameIndexChanged(long frameIndex) {
+        mCurValueIndex = (int) (frameIndex % ARRAY_VALUES_LENGTH);
+    }
+
+    @Override
+    public void getFrameDirtyBounds(Rect outRect) {
+        Rect bounds = super.getBounds();
+        if (bounds.width() <= 0 || bounds.height() <= 0) {
+            outRect.setEmpty();
+            return;
+        }
+
+        //the dots are never larger than the max radius, 1 pixel more for the anti alias
+        outRect.set((int) (mArrayDotCenterX[0] - mMaxRadius) - 1, (int) (mDotCenterY - mMaxRadius) - 1,
+                (int) Math.ceil(mArrayDotCenterX[mDotCount - 1] + mMaxRadius) + 1, (int) Math.ceil(mDotCenterY + mMaxRadius) + 1);
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        Rect bounds = super.getBounds();
+        if (bounds.width() <= 0 || bounds.height() <= 0) {
+            return;
+        }
+
+        if (mCurValueIndex >= ARRAY_VALUES_LENGTH || mCurValueIndex < 0) {
+            mCurValueIndex = 0;
+        }
+
+        //count the dots of each batch, the batch is decided by the color group and the radius level
+        int batchCount = mColorGroupCount * RADIUS_LEVEL_COUNT;
+        Arrays.fill(mArrayBatchCount, 0, batchCount, 0);
+        for (int i = 0; i < mDotCount; i++) {
+            mArrayBatchCount[getDotBatch(i)]++;
+        }
+
+        int pointEnd = 0;
+        for (int batch = 0; batch < batchCount; batch++) {
+            mArrayBatchEnd[batch] = pointEnd;
+            pointEnd += mArrayBatchCount[batch];
+        }
+
+        //put the points of each batch together, the end of each batch is moved to the real end
+        for (int i = 0; i < mDotCount; i++) {
+            int pointIndex = mArrayBatchEnd[getDotBatch(i)]++;
+            mArrayPoint[pointIndex * 2] = mArrayDotCenterX[i];
+            mArrayPoint[pointIndex * 2 + 1] = mDotCenterY;
+        }
+
+        for (int batch = 0; batch < batchCount; batch++) {
+            int count = mArrayBatchCount[batch];
+            if (count == 0) {
+                continue;
+            }
+
+            //the round point of the stroke width is the dot of the diameter
+            setPaintColor(mPaint, mArrayGroupColor[batch / RADIUS_LEVEL_COUNT], mAlpha);
+            mPaint.setStrokeWidth(mArrayLevelRadius[batch % RADIUS_LEVEL_COUNT] * 2f);
+            canvas.drawPoints(mArrayPoint, (mArrayBatchEnd[batch] - count) * 2, count * 2, mPaint);
+        }
+    }
+
+    /**
+     * get the batch of the dot in current frame
+     * @param index the index of the dot
+     * @return the batch index
+     */
+    private int getDotBatch(int index) {
+        int valueIndex = (mCurValueIndex + mArrayDotPhaseIndex[index]) % ARRAY_VALUES_LENGTH;
+        int radiusLevel = Math.min(valueIndex, ARRAY_VALUES_LENGTH - valueIndex);
+        return mArrayDotColorGroup[index] * RADIUS_LEVEL_COUNT + radiusLevel;
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mAlpha = alpha;
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mPaint.setColorFilter(colorFilter);
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return getDefaultWidth();
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return (int) (mDimenDefaultDotWidth * DOT_RADIUS_RATIO * 2f);
+    }
+
+    static {
+        //the sin values are looked up from the shared table, see LookupTable
+        if (DEGREE_STEP <= 0 || 180 % DEGREE_STEP != 0) {
+            throw new RuntimeException("degree step should be a positive number which divides 180 evenly");
+        }
+
+        ARRAY_VALUES_LENGTH = 180 / DEGREE_STEP;
+        RADIUS_LEVEL_COUNT = ARRAY_VALUES_LENGTH / 2 + 1;
+    }
+}
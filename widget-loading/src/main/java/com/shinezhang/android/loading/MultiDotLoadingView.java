@@ -0,0 +1,271 @@
+package com.shinezhang.android.loading;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.util.AttributeSet;
+
+import com.shinezhang.android.R;
+
+/**
+ * Created by ShineZhang on 2017/3/20.
+ *
+ * <p>the dots in a row zoom in and out by their phases, the dot count, the colors and the phases are configurable.
+ *
+ * @see MultiDotLoadingRenderer
+ */
+public class MultiDotLoadingView extends AbstractLoadingView {
+
+    private MultiDotLoadingRenderer mRenderer;
+    private long mInvalidateDelayTime;
+
+    public MultiDotLoadingView(Context context) {
+        super(context);
+        init(context, null);
+    }
+
+    public MultiDotLoadingView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init(context, attrs);
+    }
+
+    public MultiDotLoadingView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(context, attrs);
+    }
+
+    @TargetApi(21)
+    public MultiDotLoadingView(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        super(context, attrs, defStyleAttr, defStyleRes);
+        init(context, attrs);
+    }
+
+    private void init(Context context, AttributeSet attrs) {
+        mRenderer = new MultiDotLoadingRenderer(context);
+
+        if (attrs != null) {
+            TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.MultiDotLoadingView);
+
+            try {
+                int dotCount = a.getInt(R.styleable.MultiDotLoadingView_multi_dot_count, MultiDotLoadingRenderer.DEFAULT_DOT_COUNT);
+                int dotColorsResId = a.getResourceId(R.styleable.MultiDotLoadingView_multi_dot_colors, 0);
+                int invalidateDelayTime = a.getInt(R.styleable.MultiDotLoadingView_multi_dot_loading_invalid_delay_time, (int) MultiDotLoadingRenderer.DEFAULT_INVALIDATE_DELAY_TIME);
+                int targetFps = a.getInt(R.styleable.MultiDotLoadingView_multi_dot_loading_target_fps, LoadingAnimationPolicy.TARGET_FPS_UNLIMITED);
+
+                setDotCount(dotCount);
+                if (a.hasValue(R.styleable.MultiDotLoadingView_multi_dot_phase_step)) {
+                    setPhaseStep(a.getFloat(R.styleable.MultiDotLoadingView_multi_dot_phase_step, 0f));
+                }
+                if (dotColorsResId != 0) {
+                    setDotColors(readColors(context, dotColorsResId));
+                }
+                setInvalidateDelayTime(invalidateDelayTime);
+                if (targetFps > 0) {
+                    super.setTargetFps(targetFps);
+                }
+            } finally {
+                a.recycle();
+            }
+        } else {
+            setInvalidateDelayTime(MultiDotLoadingRenderer.DEFAULT_INVALIDATE_DELAY_TIME);
+        }
+    }
+
+    /**
+     * read the colors from an array resource, the items can be the colors or the references of the colors
+     * @param context the context
+     * @param resId the id of the array
+     * @return the colors
+     */
+    private static int[] readColors(Context context, int resId) {
+        TypedArray colorArray = context.getResources().obtainTypedArray(resId);
+        try {
+            int[] colors = new int[colorArray.length()];
+            for (int i = 0; i < colors.length; i++) {
+                colors[i] = colorArray.getColor(i, MultiDotLoadingRenderer.DEFAULT_DOT_COLORS[i % MultiDotLoadingRenderer.DEFAULT_DOT_COLORS.length]);
+            }
+            return colors;
+        } finally {
+            colorArray.recycle();
+        }
+    }
+
+    /**
+     * set the dot count, the colors are kept for the existing dots, the new dots use the default colors,
+     * the phases are reset to spread evenly in half a cycle
+     * @param count the dot count, it should be a positive number
+     */
+    public final void setDotCount(int count) {
+        if (count == mRenderer.getDotCount()) {
+            return;
+        }
+
+        mRenderer.setDotCount(count);
+        super.requestLayout();
+        super.invalidate();
+    }
+
+    /**
+     * get the dot count
+     * @return the dot count
+     */
+    public final int getDotCount() {
+        return mRenderer.getDotCount();
+    }
+
+    /**
+     * set the colors of the dots, the colors are repeated if there are less colors than the dots
+     * @param colors the colors, it should not be empty
+     */
+    public final void setDotColors(int... colors) {
+        mRenderer.setDotColors(colors);
+        super.invalidate();
+    }
+
+    /**
+     * set the color of a dot
+     * @param index the index of the dot from the left
+     * @param color the color of the dot
+     */
+    public final void setDotColor(int index, int color) {
+        mRenderer.setDotColor(index, color);
+        super.invalidate();
+    }
+
+    /**
+     * get the color of a dot
+     * @param index the index of the dot from the left
+     * @return the color of the dot
+     */
+    public final int getDotColor(int index) {
+        return mRenderer.getDotColor(index);
+    }
+
+    /**
+     * set the phases of the dots by a fixed step, the phase of each dot is the index multiplied by the step
+     * @param degree the phase step between the adjacent dots, it is rounded to 15 degrees
+     */
+    public final void setPhaseStep(float degree) {
+        mRenderer.setPhaseStep(degree);
+        super.invalidate();
+    }
+
+    /**
+     * set the phase of a dot, the dots of the same phase zoom in and out together
+     * @param index the index of the dot from the left
+     * @param degree the phase, it is rounded to 15 degrees
+     */
+    public final void setDotPhase(int index, float degree) {
+        mRenderer.setDotPhase(index, degree);
+        super.invalidate();
+    }
+
+    /**
+     * get the phase of a dot
+     * @param index the index of the dot from the left
+     * @return the phase in degree
+     */
+    public final float getDotPhase(int index) {
+        return mRenderer.getDotPhase(index);
+    }
+
+    /**
+     * set the view invalidate time delay, it is the time of each animation step,
+     * the value smaller than {@link LoadingFrameClock#MIN_FRAME_INTERVAL_MILLIS} is treated as one frame
+     * @param delayTimeMills the unit is milliseconds,
+     *                       if negative number is set, do nothing.
+     *                       the view will invalidate faster if the value is small
+     */
+    public final void setInvalidateDelayTime(long delayTimeMills) {
+        if (delayTimeMills < 0) {
+            return;
+        }
+
+        mInvalidateDelayTime = delayTimeMills;
+        super.getAnimationController().setFrameDuration(delayTimeMills);
+    }
+
+    /**
+     * get the view invalidate time delay
+     * @return the view invalidate time delay
+     */
+    public final long getInvalidateDelayTime() {
+        return mInvalidateDelayTime;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        mRenderer.setBounds(super.getPaddingLeft(), super.getPaddingTop(),
+                right - left - super.getPaddingRight(), bottom - top - super.getPaddingBottom());
+        mRenderer.setFrameIndex(0L);
+        super.getAnimationController().resetFrameIndex();
+    }
+
+    @Override
+    protected void onAnimationFrame(long frameIndex) {
+        //only the dots are redrawn
+        super.invalidateRendererFrame(mRenderer, frameIndex);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int widthSpecMode = MeasureSpec.getMode(widthMeasureSpec);
+        int heightSpecMode = MeasureSpec.getMode(heightMeasureSpec);
+
+        if (widthSpecMode != MeasureSpec.AT_MOST && heightSpecMode != MeasureSpec.AT_MOST) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+
+        int widthSpecSize = MeasureSpec.getSize(widthMeasureSpec);
+        int heightSpecSize = MeasureSpec.getSize(heightMeasureSpec);
+        int dotCount = mRenderer.getDotCount();
+
+        if (widthSpecMode == MeasureSpec.AT_MOST) {
+
+            if (heightSpecMode == MeasureSpec.AT_MOST) {
+                //width and height are both warp_content
+                int horizontalPadding = super.getPaddingLeft() + super.getPaddingRight();
+                int minWithSize = Math.min(widthSpecSize, mRenderer.getDefaultWidth() + horizontalPadding);
+                float radius = (minWithSize - horizontalPadding) * MultiDotLoadingRenderer.DOT_RADIUS_RATIO / dotCount;
+                int height = super.getPaddingTop() + super.getPaddingBottom();
+                if (radius > 0f) {
+                    height = (int) (height + radius * 2);
+                }
+                super.setMeasuredDimension(minWithSize, Math.min(height, heightSpecSize));
+            } else {
+                //width is wrap_content, height is exact
+                int verticalPadding = super.getPaddingTop() + super.getPaddingBottom();
+                float radius = (heightSpecSize - verticalPadding) * 0.5f;
+                int width = super.getPaddingLeft() + super.getPaddingRight();
+                if (radius > 0f) {
+                    width = (int) (width + radius / MultiDotLoadingRenderer.DOT_RADIUS_RATIO * dotCount);
+                }
+                super.setMeasuredDimension(Math.min(width, widthSpecSize), heightSpecSize);
+            }
+        } else if (heightSpecMode == MeasureSpec.AT_MOST) {
+            //width is exact, height is wrap_content
+            int horizontalPadding = super.getPaddingLeft() + super.getPaddingRight();
+            float radius = (widthSpecSize - horizontalPadding) * MultiDotLoadingRenderer.DOT_RADIUS_RATIO / dotCount;
+            int height = super.getPaddingTop() + super.getPaddingBottom();
+            if (radius > 0f) {
+                height = (int) (height + radius * 2);
+            }
+            super.setMeasuredDimension(widthSpecSize, Math.min(height, heightSpecSize));
+        }
+
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        LoadingTrace.beginSection(LoadingTrace.SECTION_MULTI_DOT_DRAW);
+        try {
+            mRenderer.draw(canvas);
+        } finally {
+            LoadingTrace.endSection();
+        }
+    }
+}
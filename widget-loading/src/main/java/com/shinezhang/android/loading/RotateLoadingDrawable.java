@@ -0,0 +1,82 @@
+package com.shinezhang.android.loading;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import com.shinezhang.android.R;
+
+/**
+ * Created by ShineZhang on 2017/3/9.
+ *
+ * <p>the drawable version of {@link RotateLoadingView}
+ */
+public class RotateLoadingDrawable extends AbstractLoadingDrawable {
+
+    /**
+     * the drawable may outlive the activity in a static or a shared place, only the application context is kept
+     */
+    private final Context mAppContext;
+    private final RotateLoadingRenderer mRenderer;
+
+    public RotateLoadingDrawable(Context context) {
+        this(context, new RotateLoadingRenderer(context));
+    }
+
+    private RotateLoadingDrawable(Context context, RotateLoadingRenderer renderer) {
+        super(renderer);
+        Context appContext = context.getApplicationContext();
+        mAppContext = (appContext == null) ? context : appContext;
+        mRenderer = renderer;
+        setInvalidateDelayTime(RotateLoadingRenderer.DEFAULT_INVALID_DELAY_TIME);
+        setImageResource(R.drawable.ic_rotate_loading);
+    }
+
+    /**
+     * set the rotate bitmap, exception will throw when the bitmap is null or is recycled
+     * @param bitmap the bitmap that will draw on this drawable
+     */
+    public final void setImageBitmap(Bitmap bitmap) {
+        mRenderer.setBitmap(bitmap);
+        super.invalidateSelf();
+    }
+
+    /**
+     * set the rotate image by resource id
+     * @param resId the image resource id
+     */
+    public final void setImageResource(int resId) {
+        setImageBitmap(LoadingBitmapCache.getInstance().getBitmap(mAppContext, resId));
+    }
+
+    /**
+     * set the time of each rotate step,
+     * the value smaller than {@link LoadingFrameClock#MIN_FRAME_INTERVAL_MILLIS} is treated as one frame
+     * @param delayTimeMills the unit is milliseconds, if negative number is set, do nothing.
+     */
+    public final void setInvalidateDelayTime(long delayTimeMills) {
+        if (delayTimeMills < 0) {
+            return;
+        }
+
+        super.getAnimationController().setFrameDuration(delayTimeMills);
+    }
+
+    /**
+     * set the rotate step of each frame
+     * @param rotateStep the rotate step
+     */
+    public final void setRotateStep(float rotateStep) {
+        mRenderer.setRotateStep(rotateStep);
+        super.invalidateSelf();
+    }
+
+    /**
+     * draw the bitmap by the pre-rotated frames shared with the other loadings
+     * @param enabled true to enable the sprite frames
+     * @see RotateLoadingRenderer#setSpriteEnabled(boolean)
+     */
+    public final void setSpriteEnabled(boolean enabled) {
+        mRenderer.setSpriteEnabled(enabled);
+        super.invalidateSelf();
+    }
+}
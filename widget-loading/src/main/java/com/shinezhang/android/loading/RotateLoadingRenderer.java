@@ -0,0 +1,381 @@
+package com.shinezhang.android.loading;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.Log;
+import android.util.TypedValue;
+
+import com.shinezhang.android.loading.core.LookupTable;
+
+/**
+ * Created by ShineZhang on 2017/3/9.
+ *
+ * <p>the renderer of the rotate loading, the bitmap is rotated by a fixed step in the center of the bounds.
+ *
+ * @see RotateLoadingView
+ * @see RotateLoadingDrawable
+ */
+public final class RotateLoadingRenderer extends AbstractLoadingRenderer {
+
+    private static final String TAG                                 = "RotateLoadingRenderer";
+
+    private static final int DEFAULT_SIZE_DP                        = 20;
+    /* package */ static final long DEFAULT_INVALID_DELAY_TIME      = 80L;
+    /* package */ static final float DEFAULT_ROTATE_STEP            = 30f;
+
+    /**
+     * the max count of the precomputed step matrices, the step smaller than 1 degree is rotated per frame
+     */
+    private static final int MAX_STEP_MATRIX_COUNT                  = 360;
+
+    private static final int PLACEHOLDER_COLOR                      = 0xffa9a9a9;
+    private static final float PLACEHOLDER_SWEEP_ANGLE              = 270f;
+
+    private final int mDefaultSizePixel;
+
+    private Bitmap mRotateBitmap;
+    private final Matrix mMatrix                                    = new Matrix();
+    private final Matrix mDrawMatrix                                = new Matrix();
+    private final Matrix mRotateMatrix                              = new Matrix();
+    /**
+     * the draw matrix of each step, it is used when the rotate step divides 360 evenly, otherwise it is null
+     */
+    private Matrix[] mArrayStepMatrix;
+    private boolean mIsSpriteEnabled;
+    private RotateSpriteStrip mSpriteStrip;
+    /**
+     * the strip of current config is larger than the budget, it is not acquired again until the config is changed
+     */
+    private boolean mIsSpriteStripUnavailable;
+    private final Paint mPaint                                      = new Paint();
+    private final Paint mPaintPlaceholder                           = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF mRectFPlaceholder                           = new RectF();
+
+    private float mRotateStep                                       = DEFAULT_ROTATE_STEP;
+    private long mCurStepIndex;
+
+    private boolean mIsBitmapIllegal                                = true;
+
+    public RotateLoadingRenderer(Context context) {
+        mDefaultSizePixel = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_SIZE_DP,
+                context.getResources().getDisplayMetrics());
+        mPaintPlaceholder.setStyle(Paint.Style.STROKE);
+        mPaintPlaceholder.setColor(PLACEHOLDER_COLOR);
+    }
+
+    /**
+     * get the default size, it is used when the bitmap is not ready
+     * @return the size in pixel
+     */
+    public int getDefaultSize() {
+        return mDefaultSizePixel;
+    }
+
+    /**
+     * set the rotate bitmap, exception will throw when the bitmap is null or is recycled
+     * @param bitmap the bitmap to rotate
+     */
+    public void setBitmap(Bitmap bitmap) {
+        if (bitmap == null) {
+            throw new IllegalArgumentException("bitmap can not be null");
+        }
+
+        if (bitmap.isRecycled()) {
+            throw new RuntimeException("bitmap is recycled");
+        }
+
+        mRotateBitmap = bitmap;
+        initMatrix();
+    }
+
+    /**
+     * get the rotate bitmap
+     * @return the bitmap, null if not set
+     */
+    public Bitmap getBitmap() {
+        return mRotateBitmap;
+    }
+
+    /**
+     * set the rotate step of each frame
+     * @param rotateStep the rotate step
+     */
+    public void setRotateStep(float rotateStep) {
+        mRotateStep = rotateStep;
+        initStepMatrices();
+    }
+
+    /**
+     * get the rotate step of each frame
+     * @return the rotate step
+     */
+    public float getRotateStep() {
+        return mRotateStep;
+    }
+
+    /**
+     * draw the bitmap by the pre-rotated frames, it works only when the rotate step divides 360 evenly,
+     * the frames are shared with the other renderers with the same config by {@link RotateSpriteCache},
+     * it is disabled by default.
+     * <br/>it saves the filtered matrix drawing of the full bitmap in each frame, with the memory of the frames
+     * @param enabled true to enable the sprite frames
+     */
+    public void setSpriteEnabled(boolean enabled) {
+        mIsSpriteEnabled = enabled;
+        if (!enabled) {
+            releaseSpriteStrip();
+        }
+    }
+
+    /**
+     * whether the bitmap is drawn by the pre-rotated frames
+     * @return true if the sprite frames are enabled
+     */
+    public boolean isSpriteEnabled() {
+        return mIsSpriteEnabled;
+    }
+
+    /**
+     * render the sprite frames of current bitmap and bounds if the sprite frames are enabled,
+     * it can be called in background thread when the renderer is not drawn
+     */
+    @Override
+    public void prepare() {
+        obtainSpriteStrip();
+    }
+
+    @Override
+    public void releaseCaches() {
+        releaseSpriteStrip();
+    }
+
+    /**
+     * get the sprite strip of current config, the strip is acquired lazily
+     * @return the strip, null if the sprite frames are disabled or not available
+     */
+    private RotateSpriteStrip obtainSpriteStrip() {
+        if (mIsBitmapIllegal || mArrayStepMatrix == null || !mIsSpriteEnabled) {
+            return null;
+        }
+
+        if (mSpriteStrip == null && !mIsSpriteStripUnavailable) {
+            mSpriteStrip = RotateSpriteCache.getInstance().acquire(mRotateBitmap, mMatrix, mArrayStepMatrix,
+                    super.getBounds(), mRotateStep);
+            mIsSpriteStripUnavailable = (mSpriteStrip == null);
+        }
+        return mSpriteStrip;
+    }
+
+    private void releaseSpriteStrip() {
+        mIsSpriteStripUnavailable = false;
+        if (mSpriteStrip != null) {
+            RotateSpriteCache.getInstance().release(mSpriteStrip);
+            mSpriteStrip = null;
+        }
+    }
+
+    @Override
+    protected void onBoundsChanged(Rect bounds) {
+        initMatrix();
+    }
+
+    @Override
+    protected void onFrameIndexChanged(long frameIndex) {
+        mCurStepIndex = frameIndex;
+    }
+
+    /**
+     * initial the matrix after all the info is ready
+     */
+    private void initMatrix() {
+        LoadingTrace.beginSection(LoadingTrace.SECTION_ROTATE_MATRIX);
+        try {
+            computeMatrix();
+        } finally {
+            LoadingTrace.endSection();
+        }
+    }
+
+    private void computeMatrix() {
+        mIsBitmapIllegal = true;
+
+        if (mRotateBitmap == null) {
+            //the bitmap is loading, the placeholder is drawn
+            return;
+        }
+
+        if (mRotateBitmap.isRecycled()) {
+            Log.w(TAG, "bitmap is recycled");
+            return;
+        }
+
+        Rect bounds = super.getBounds();
+        int orgBitmapWidth = mRotateBitmap.getWidth();
+        int orgBitmapHeight = mRotateBitmap.getHeight();
+        int drawBitmapWidth = bounds.width();
+        int drawBitmapHeight = bounds.height();
+
+        mMatrix.reset();
+        if (drawBitmapWidth <= 0 || drawBitmapHeight <= 0) {
+            return;
+        }
+
+        mIsBitmapIllegal = false;
+
+        float scale;
+        if (orgBitmapWidth * drawBitmapHeight > orgBitmapHeight * drawBitmapWidth) {
+            scale = drawBitmapWidth * 1f / orgBitmapWidth;
+        } else {
+            scale = drawBitmapHeight * 1f / orgBitmapHeight;
+        }
+
+        float finalDrawWidth = orgBitmapWidth * scale;
+        float finalDrawHeight = orgBitmapHeight * scale;
+
+        float translateX = bounds.left + (drawBitmapWidth - finalDrawWidth) * 0.5f;
+        float translateY = bounds.top + (drawBitmapHeight - finalDrawHeight) * 0.5f;
+
+        mMatrix.postScale(scale, scale);
+        mMatrix.postTranslate(translateX, translateY);
+        initStepMatrices();
+    }
+
+    /**
+     * precompute the draw matrix of each step when the rotate step divides 360 evenly,
+     * each matrix is computed from the base matrix by the absolute degree, so the error never accumulates
+     */
+    private void initStepMatrices() {
+        releaseSpriteStrip();
+
+        int stepCount = computeStepCount(mRotateStep);
+        if (mIsBitmapIllegal || stepCount <= 0) {
+            mArrayStepMatrix = null;
+            return;
+        }
+
+        if (mArrayStepMatrix == null || mArrayStepMatrix.length != stepCount) {
+            mArrayStepMatrix = new Matrix[stepCount];
+            for (int i = 0; i < stepCount; i++) {
+                mArrayStepMatrix[i] = new Matrix();
+            }
+        }
+
+        Rect bounds = super.getBounds();
+        float rotateCenterX = bounds.left + bounds.width() * 0.5f;
+        float rotateCenterY = bounds.top + bounds.height() * 0.5f;
+        for (int i = 0; i < stepCount; i++) {
+            float degree = (float) ((i * (double) mRotateStep) % 360d);
+            mRotateMatrix.setSinCos(LookupTable.sinDegrees(degree), LookupTable.cosDegrees(degree), rotateCenterX, rotateCenterY);
+            mArrayStepMatrix[i].setConcat(mRotateMatrix, mMatrix);
+        }
+    }
+
+    /**
+     * compute the count of the distinct steps in a round
+     * @param rotateStep the rotate step
+     * @return the step count, 0 if the step does not divide 360 evenly
+     */
+    private static int computeStepCount(float rotateStep) {
+        float absStep = Math.abs(rotateStep);
+        if (absStep == 0f) {
+            return 0;
+        }
+
+        float stepCount = 360f / absStep;
+        if (stepCount != (int) stepCount || stepCount > MAX_STEP_MATRIX_COUNT) {
+            return 0;
+        }
+        return (int) stepCount;
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (mIsBitmapIllegal) {
+            if (mRotateBitmap == null) {
+                drawPlaceholder(canvas);
+            }
+            return;
+        }
+
+        RotateSpriteStrip spriteStrip = obtainSpriteStrip();
+        if (spriteStrip != null) {
+            spriteStrip.draw(canvas, mCurStepIndex, super.getBounds(), mPaint);
+            return;
+        }
+
+        if (mArrayStepMatrix != null) {
+            //look up the precomputed matrix of current step
+            Matrix stepMatrix = mArrayStepMatrix[(int) (mCurStepIndex % mArrayStepMatrix.length)];
+            canvas.drawBitmap(mRotateBitmap, stepMatrix, mPaint);
+            return;
+        }
+
+        Rect bounds = super.getBounds();
+        float rotateCenterX = bounds.left + bounds.width() * 0.5f;
+        float rotateCenterY = bounds.top + bounds.height() * 0.5f;
+
+        //rotate from the base matrix by the absolute degree of current step
+        float degree = getCurrentDegree();
+        mRotateMatrix.setSinCos(LookupTable.sinDegrees(degree), LookupTable.cosDegrees(degree), rotateCenterX, rotateCenterY);
+        mDrawMatrix.setConcat(mRotateMatrix, mMatrix);
+        canvas.drawBitmap(mRotateBitmap, mDrawMatrix, mPaint);
+    }
+
+    /**
+     * draw a rotating arc in the bounds until the bitmap is set
+     * @param canvas the canvas to draw
+     */
+    private void drawPlaceholder(Canvas canvas) {
+        Rect bounds = super.getBounds();
+        int size = Math.min(bounds.width(), bounds.height());
+        if (size <= 0) {
+            return;
+        }
+
+        float strokeWidth = size / 10f;
+        float radius = (size - strokeWidth) * 0.5f;
+        float centerX = bounds.left + bounds.width() * 0.5f;
+        float centerY = bounds.top + bounds.height() * 0.5f;
+        mRectFPlaceholder.set(centerX - radius, centerY - radius, centerX + radius, centerY + radius);
+        mPaintPlaceholder.setStrokeWidth(strokeWidth);
+        canvas.drawArc(mRectFPlaceholder, getCurrentDegree(), PLACEHOLDER_SWEEP_ANGLE, false, mPaintPlaceholder);
+    }
+
+    private float getCurrentDegree() {
+        return (float) ((mCurStepIndex * (double) mRotateStep) % 360d);
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mPaint.setAlpha(alpha);
+        setPaintColor(mPaintPlaceholder, PLACEHOLDER_COLOR, alpha);
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mPaint.setColorFilter(colorFilter);
+        mPaintPlaceholder.setColorFilter(colorFilter);
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        if (mRotateBitmap == null || mRotateBitmap.isRecycled()) {
+            return mDefaultSizePixel;
+        }
+        return mRotateBitmap.getWidth();
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        if (mRotateBitmap == null || mRotateBitmap.isRecycled()) {
+            return mDefaultSizePixel;
+        }
+        return mRotateBitmap.getHeight();
+    }
+}
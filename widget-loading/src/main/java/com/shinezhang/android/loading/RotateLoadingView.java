@@ -1,40 +1,70 @@
 package com.shinezhang.android.loading;
 
+import android.animation.TimeInterpolator;
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Matrix;
-import android.graphics.drawable.BitmapDrawable;
-import android.graphics.drawable.Drawable;
-import android.support.v4.content.ContextCompat;
+import android.graphics.Rect;
+import android.os.Build;
 import android.util.AttributeSet;
 import android.util.Log;
-import android.util.TypedValue;
 import android.view.View;
+import android.view.animation.LinearInterpolator;
 
 import com.shinezhang.android.R;
 
+import java.lang.ref.WeakReference;
+
 /**
  * Created by ShineZhang on 2017/2/21.
  */
-public class RotateLoadingView extends View {
-
-    private static final String TAG                         = "RotateLoadingView";
+public class RotateLoadingView extends AbstractLoadingView {
 
-    private static final int DEFAULT_SIZE_DP                = 20;
-    private static final long DEFAULT_INVALID_DELAY_TIME    = 80L;
-    private static final float DEFAULT_ROTATE_STEP          = 30f;
+    private static final String TAG                                 = "RotateLoadingView";
 
-    private int mDefaultSizePixel;
+    /**
+     * the max duration of each render thread animation in whole turns, it is restarted by the main thread after it,
+     * the render thread animation can not repeat, and the interpolator is sampled into a table of the duration
+     */
+    private static final long MAX_RENDER_THREAD_ROTATION_DURATION   = 60000L;
 
-    private Bitmap mRotateBitmap;
-    private Matrix mMatrix;
+    private static final TimeInterpolator LINEAR_INTERPOLATOR       = new LinearInterpolator();
 
+    private RotateLoadingRenderer mRenderer;
     private long mInvalidDelayTime;
-    private float mRotateStep;
 
-    private boolean mIsBitmapIllegal;
+    private boolean mIsRenderThreadRotation;
+    /**
+     * whether the view is rotated by the render thread now, it falls back to the frame loop if not available
+     */
+    private boolean mIsRotatingOnRenderThread;
+    private int mLayerTypeBeforeRotation;
+    private float mRotationBeforeRotation;
+    private float mPivotXBeforeRotation;
+    private float mPivotYBeforeRotation;
+    private StepInterpolator mRotationInterpolator;
+
+    private final Runnable mRotationRestartRunnable                 = new Runnable() {
+
+        @Override
+        public void run() {
+            updateRenderThreadRotation(true);
+        }
+    };
+
+    /**
+     * the image resource loading in background, 0 if the image is set directly
+     */
+    private int mAsyncResId;
+    private int mAsyncTargetWidth;
+    private int mAsyncTargetHeight;
+
+    /**
+     * the image resource deferred to the first attach in the lazy init mode, 0 if there is none
+     */
+    private int mLazyResId;
 
     public RotateLoadingView(Context context) {
         super(context);
@@ -52,38 +82,81 @@ public class RotateLoadingView extends View {
     }
 
     private void init(Context context, AttributeSet attrs) {
-        mDefaultSizePixel = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_SIZE_DP,
-                getContext().getResources().getDisplayMetrics());
-
-        mMatrix = new Matrix();
+        mRenderer = new RotateLoadingRenderer(context);
 
         long invalidDelayTime;
+        int targetFps;
         float rotateStep;
         int imgResId;
+        boolean renderThreadRotation;
+        boolean asyncSrc;
+        boolean spriteEnabled;
+        boolean lazyInit;
         if (attrs == null) {
-            invalidDelayTime = DEFAULT_INVALID_DELAY_TIME;
-            rotateStep = DEFAULT_ROTATE_STEP;
+            invalidDelayTime = RotateLoadingRenderer.DEFAULT_INVALID_DELAY_TIME;
+            targetFps = LoadingAnimationPolicy.TARGET_FPS_UNLIMITED;
+            rotateStep = RotateLoadingRenderer.DEFAULT_ROTATE_STEP;
             imgResId = R.drawable.ic_rotate_loading;
+            renderThreadRotation = false;
+            asyncSrc = false;
+            spriteEnabled = false;
+            lazyInit = false;
         } else {
             TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.RotateLoadingView);
             try {
-                invalidDelayTime = a.getInt(R.styleable.RotateLoadingView_rotate_loading_invalid_delay_time, (int) DEFAULT_INVALID_DELAY_TIME);
-                rotateStep = a.getFloat(R.styleable.RotateLoadingView_rotate_step, DEFAULT_ROTATE_STEP);
+                invalidDelayTime = a.getInt(R.styleable.RotateLoadingView_rotate_loading_invalid_delay_time, (int) RotateLoadingRenderer.DEFAULT_INVALID_DELAY_TIME);
+                targetFps = a.getInt(R.styleable.RotateLoadingView_rotate_loading_target_fps, LoadingAnimationPolicy.TARGET_FPS_UNLIMITED);
+                if (targetFps <= 0) {
+                    targetFps = LoadingAnimationPolicy.TARGET_FPS_UNLIMITED;
+                }
+                rotateStep = a.getFloat(R.styleable.RotateLoadingView_rotate_step, RotateLoadingRenderer.DEFAULT_ROTATE_STEP);
                 imgResId = a.getResourceId(R.styleable.RotateLoadingView_rotate_src, R.drawable.ic_rotate_loading);
+                renderThreadRotation = a.getBoolean(R.styleable.RotateLoadingView_rotate_on_render_thread, false);
+                asyncSrc = a.getBoolean(R.styleable.RotateLoadingView_rotate_src_async, false);
+                spriteEnabled = a.getBoolean(R.styleable.RotateLoadingView_rotate_sprite_frames, false);
+                lazyInit = a.getBoolean(R.styleable.RotateLoadingView_rotate_lazy_init, false);
             } finally {
                 a.recycle();
             }
         }
 
         setInvalidateDelayTime(invalidDelayTime);
+        super.setTargetFps(targetFps);
         setRotateStep(rotateStep);
-        setImageResource(imgResId);
+        setSpriteEnabled(spriteEnabled);
+        if (asyncSrc) {
+            setImageResourceAsync(imgResId);
+        } else if (lazyInit) {
+            //the image is decoded on the first attach, the placeholder size is used until then
+            mLazyResId = imgResId;
+            super.deferPrepare();
+        } else {
+            setImageResource(imgResId);
+        }
+        setRenderThreadRotationEnabled(renderThreadRotation);
+    }
+
+    @Override
+    protected void onPrepare() {
+        super.onPrepare();
+        if (mLazyResId != 0) {
+            setImageResource(mLazyResId);
+        }
     }
 
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         super.onLayout(changed, left, top, right, bottom);
-        initMatrix();
+        int paddingLeft = super.getPaddingLeft();
+        int paddingTop = super.getPaddingTop();
+        int drawRight = right - left - super.getPaddingRight();
+        int drawBottom = bottom - top - super.getPaddingBottom();
+        mRenderer.setBounds(paddingLeft, paddingTop, drawRight, drawBottom);
+        if (mIsRotatingOnRenderThread) {
+            updateRotationPivot();
+        }
+
+        loadAsyncImage();
     }
 
     @Override
@@ -101,6 +174,9 @@ public class RotateLoadingView extends View {
         int heightSpecSize = MeasureSpec.getSize(heightMeasureSpec);
         int horizontalPadding = super.getPaddingLeft() + super.getPaddingRight();
         int verticalPadding = super.getPaddingTop() + super.getPaddingBottom();
+        //the size of the async image is unknown until loaded, it is measured by the default size
+        Bitmap rotateBitmap = (mAsyncResId == 0) ? mRenderer.getBitmap() : null;
+        int defaultSizePixel = mRenderer.getDefaultSize();
 
         if (withSpecMode == MeasureSpec.AT_MOST) {
 
@@ -109,12 +185,12 @@ public class RotateLoadingView extends View {
 
                 int measuredWidth = horizontalPadding;
                 int measuredHeight = verticalPadding;
-                if (mRotateBitmap == null || mRotateBitmap.isRecycled()) {
-                    measuredWidth += mDefaultSizePixel;
-                    measuredHeight += mDefaultSizePixel;
+                if (rotateBitmap == null || rotateBitmap.isRecycled()) {
+                    measuredWidth += defaultSizePixel;
+                    measuredHeight += defaultSizePixel;
                 } else {
-                    measuredWidth += mRotateBitmap.getWidth();
-                    measuredHeight += mRotateBitmap.getHeight();
+                    measuredWidth += rotateBitmap.getWidth();
+                    measuredHeight += rotateBitmap.getHeight();
                 }
 
                 measuredWidth = Math.min(measuredWidth, widthSpecSize);
@@ -126,10 +202,10 @@ public class RotateLoadingView extends View {
                 int availableHeight = heightSpecSize - verticalPadding;
                 int measuredWidth = horizontalPadding;
                 if (availableHeight > 0) {
-                    if (mRotateBitmap == null || mRotateBitmap.isRecycled()) {
+                    if (rotateBitmap == null || rotateBitmap.isRecycled()) {
                         measuredWidth += availableHeight;
                     } else {
-                        int desiredWidth = (int) ((mRotateBitmap.getWidth() * 1f * availableHeight) / mRotateBitmap.getHeight());
+                        int desiredWidth = (int) ((rotateBitmap.getWidth() * 1f * availableHeight) / rotateBitmap.getHeight());
                         measuredWidth += desiredWidth;
                     }
                 }
@@ -145,10 +221,10 @@ public class RotateLoadingView extends View {
                 int measuredHeight = verticalPadding;
                 int availableHeight = widthSpecSize - horizontalPadding;
                 if (availableHeight > 0) {
-                    if (mRotateBitmap == null || mRotateBitmap.isRecycled()) {
+                    if (rotateBitmap == null || rotateBitmap.isRecycled()) {
                         measuredHeight += availableHeight;
                     } else {
-                        int desiredHeight = (int) ((mRotateBitmap.getHeight() * 1f * availableHeight) / mRotateBitmap.getWidth());
+                        int desiredHeight = (int) ((rotateBitmap.getHeight() * 1f * availableHeight) / rotateBitmap.getWidth());
                         measuredHeight += desiredHeight;
                     }
                 }
@@ -161,147 +237,341 @@ public class RotateLoadingView extends View {
         }
     }
 
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        LoadingTrace.beginSection(LoadingTrace.SECTION_ROTATE_DRAW);
+        try {
+            mRenderer.draw(canvas);
+        } finally {
+            LoadingTrace.endSection();
+        }
+    }
+
+    @Override
+    protected void onAnimationFrame(long frameIndex) {
+        mRenderer.setFrameIndex(frameIndex);
+        super.onAnimationFrame(frameIndex);
+    }
+
     /**
-     * initial the matrix after all the info is ready
+     * set the rotate bitmap, exception will throw when the bitmap is null or is recycled
+     * @param bitmap the bitmap that will draw on this view
      */
-    private void initMatrix() {
-        mIsBitmapIllegal = true;
+    public final void setImageBitmap(Bitmap bitmap) {
+        mAsyncResId = 0;
+        mLazyResId = 0;
+        Bitmap oldBitmap = mRenderer.getBitmap();
+        mRenderer.setBitmap(bitmap);
+
+        //only the wrap_content size depends on the bitmap size
+        if (oldBitmap == null
+                || oldBitmap.getWidth() != bitmap.getWidth()
+                || oldBitmap.getHeight() != bitmap.getHeight()) {
+            super.requestLayout();
+        }
+        super.invalidate();
+    }
+
+    /**
+     * set the rotate image by resource id
+     * @param resId the image resource id
+     */
+    public final void setImageResource(int resId) {
+        setImageBitmap(LoadingBitmapCache.getInstance().getBitmap(getContext(), resId));
+    }
 
-        if (mRotateBitmap == null) {
-            Log.w(TAG, "bitmap is null");
+    /**
+     * set the rotate image by resource id, the image is loaded in background
+     * and down sampled to the draw size, a placeholder is drawn until the image is loaded.
+     * <br/>the view with wrap_content is measured by the default size, because the image size is unknown
+     * @param resId the image resource id
+     */
+    public final void setImageResourceAsync(int resId) {
+        mAsyncResId = resId;
+        mLazyResId = 0;
+        mAsyncTargetWidth = 0;
+        mAsyncTargetHeight = 0;
+        loadAsyncImage();
+        super.requestLayout();
+    }
+
+    /**
+     * load the async image at the draw size, it is waiting for the layout if the size is unknown
+     */
+    private void loadAsyncImage() {
+        if (mAsyncResId == 0) {
             return;
         }
 
-        if (mRotateBitmap.isRecycled()) {
-            Log.w(TAG, "bitmap is recycled");
+        Rect bounds = mRenderer.getBounds();
+        int targetWidth = bounds.width();
+        int targetHeight = bounds.height();
+        if (targetWidth <= 0 || targetHeight <= 0) {
             return;
         }
 
-        int orgBitmapWidth = mRotateBitmap.getWidth();
-        int orgBitmapHeight = mRotateBitmap.getHeight();
-        int paddingLeft = super.getPaddingLeft();
-        int paddingTop = super.getPaddingTop();
-        int drawBitmapWidth = super.getWidth() - paddingLeft - super.getPaddingRight();
-        int drawBitmapHeight = super.getHeight() - paddingTop - super.getPaddingBottom();
+        if (targetWidth == mAsyncTargetWidth && targetHeight == mAsyncTargetHeight) {
+            //the image of the size is loaded or loading
+            return;
+        }
 
-        mMatrix.reset();
-        if (drawBitmapWidth <= 0 || drawBitmapHeight <= 0) {
+        mAsyncTargetWidth = targetWidth;
+        mAsyncTargetHeight = targetHeight;
+        int resId = mAsyncResId;
+        LoadingBitmapCache bitmapCache = LoadingBitmapCache.getInstance();
+        Bitmap bitmap = bitmapCache.getCachedBitmap(getContext(), resId, targetWidth, targetHeight);
+        if (bitmap != null) {
+            onAsyncImageLoaded(bitmap);
             return;
         }
 
-        mIsBitmapIllegal = false;
+        bitmapCache.loadBitmapAsync(getContext(), resId, targetWidth, targetHeight,
+                new AsyncImageCallback(this, resId, targetWidth, targetHeight));
+    }
 
-        float scale;
-        if (orgBitmapWidth * drawBitmapHeight > orgBitmapHeight * drawBitmapWidth) {
-            scale = drawBitmapWidth * 1f / orgBitmapWidth;
-        } else {
-            scale = drawBitmapHeight * 1f / orgBitmapHeight;
+    private void onAsyncImageLoaded(Bitmap bitmap) {
+        //the size is not changed, no need to request layout
+        mRenderer.setBitmap(bitmap);
+        super.invalidate();
+    }
+
+    private void onAsyncImageFailed(int resId) {
+        try {
+            //the image at the intrinsic size is loaded in a different way, e.g. a drawable without the sampling
+            setImageResource(resId);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "load image failed, resId: " + resId, e);
+            //do not spin the placeholder forever
+            mAsyncResId = 0;
+            super.stop();
         }
+    }
 
-        float finalDrawWidth = orgBitmapWidth * scale;
-        float finalDrawHeight = orgBitmapHeight * scale;
+    /**
+     * set the view invalidate time delay, it is the time of each rotate step,
+     * the value smaller than {@link LoadingFrameClock#MIN_FRAME_INTERVAL_MILLIS} is treated as one frame
+     * @param delayTimeMills the unit is milliseconds,
+     *                       if negative number is set, do nothing.
+     *                       the view will invalidate faster if the value is small
+     */
+    public final void setInvalidateDelayTime(long delayTimeMills) {
+        if (delayTimeMills < 0) {
+            return;
+        }
 
-        float translateX = paddingLeft + (drawBitmapWidth - finalDrawWidth) * 0.5f;
-        float translateY = paddingTop + (drawBitmapHeight - finalDrawHeight) * 0.5f;
+        mInvalidDelayTime = delayTimeMills;
+        super.getAnimationController().setFrameDuration(delayTimeMills);
+        updateRenderThreadRotation(true);
+        super.invalidate();
+    }
 
-        mMatrix.postScale(scale, scale);
-        mMatrix.postTranslate(translateX, translateY);
+    /**
+     * set the rotate step during invalid
+     * @param rotateStep the rotate step
+     */
+    public final void setRotateStep(float rotateStep) {
+        mRenderer.setRotateStep(rotateStep);
+        updateRenderThreadRotation(true);
+        super.invalidate();
     }
 
-    @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
+    /**
+     * draw the bitmap by the pre-rotated frames shared with the other loadings
+     * @param enabled true to enable the sprite frames
+     * @see RotateLoadingRenderer#setSpriteEnabled(boolean)
+     */
+    public final void setSpriteEnabled(boolean enabled) {
+        mRenderer.setSpriteEnabled(enabled);
+        super.invalidate();
+    }
 
-        if (mIsBitmapIllegal) {
+    /**
+     * enable or disable the render thread rotation mode, it is disabled by default.
+     * <p>in this mode the bitmap is drawn once into a hardware layer, and the view is rotated by
+     * a {@link View#animate()} rotation without any listener, which is run by the render thread since api 21,
+     * so the spinner keeps turning when the main thread is blocked, and no frame is ticked on the main thread.
+     * <br/>the whole view is rotated around the center of the content, including the background,
+     * the rotation and the pivot set by the caller are restored when the mode stops.
+     * <br/>the steps of the rotation are kept, but the frames are not throttled by the render thread,
+     * so the mode falls back to the frame loop when the target fps or {@link LoadingAnimationPolicy} limits the frames,
+     * below api 21 or when the view is not hardware accelerated. the state is checked when the animation starts
+     * and about once a minute.
+     * @param enabled true to enable
+     */
+    public final void setRenderThreadRotationEnabled(boolean enabled) {
+        if (enabled == mIsRenderThreadRotation) {
             return;
         }
 
-        int paddingLeft = super.getPaddingLeft();
-        int paddingTop = super.getPaddingTop();
-        int drawWidth = super.getWidth() - paddingLeft - super.getPaddingRight();
-        int drawHeight = super.getHeight() - paddingTop - super.getPaddingBottom();
+        mIsRenderThreadRotation = enabled;
+        updateRenderThreadRotation(false);
+    }
 
-        float rotateCenterX = paddingLeft + drawWidth * 0.5f;
-        float rotateCenterY = paddingTop + drawHeight * 0.5f;
+    /**
+     * whether the render thread rotation mode is enabled
+     * @return true if enabled
+     * @see #setRenderThreadRotationEnabled(boolean)
+     */
+    public final boolean isRenderThreadRotationEnabled() {
+        return mIsRenderThreadRotation;
+    }
 
-        mMatrix.postRotate(mRotateStep, rotateCenterX, rotateCenterY);
-        canvas.drawBitmap(mRotateBitmap, mMatrix, null);
+    @Override
+    protected void onAnimatingChanged(boolean animating) {
+        super.onAnimatingChanged(animating);
+        updateRenderThreadRotation(false);
+    }
 
-        postInvalidateDelayed(mInvalidDelayTime);
+    private boolean canRotateOnRenderThread() {
+        return mIsRenderThreadRotation
+                && super.isAnimating()
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP
+                && super.isHardwareAccelerated()
+                && mRenderer.getRotateStep() != 0f
+                && super.getTargetFps() == LoadingAnimationPolicy.TARGET_FPS_UNLIMITED
+                && LoadingAnimationPolicy.getInstance().getCurrentTargetFps() == LoadingAnimationPolicy.TARGET_FPS_UNLIMITED;
     }
 
     /**
-     * set the rotate bitmap, exception will throw when the bitmap is null or is recycled
-     * @param bitmap the bitmap that will draw on this view
+     * start or stop the render thread rotation by current state
+     * @param restart true to restart the running rotation with current config
      */
-    public final void setImageBitmap(Bitmap bitmap) {
-        mRotateBitmap = bitmap;
-        if (mRotateBitmap == null) {
-            throw new IllegalArgumentException("bitmap can not be null");
+    private void updateRenderThreadRotation(boolean restart) {
+        boolean rotating = canRotateOnRenderThread();
+        if (rotating == mIsRotatingOnRenderThread) {
+            if (rotating && restart) {
+                startRenderThreadRotation();
+            }
+            return;
         }
 
-        if (mRotateBitmap.isRecycled()) {
-            throw new RuntimeException("bitmap is recycled");
+        mIsRotatingOnRenderThread = rotating;
+        super.setFrameLoopSuspended(rotating);
+        if (rotating) {
+            mLayerTypeBeforeRotation = super.getLayerType();
+            mRotationBeforeRotation = super.getRotation();
+            mPivotXBeforeRotation = super.getPivotX();
+            mPivotYBeforeRotation = super.getPivotY();
+            super.setLayerType(LAYER_TYPE_HARDWARE, null);
+            updateRotationPivot();
+            //the bitmap is drawn in a fixed direction, the view rotates instead
+            mRenderer.setFrameIndex(0L);
+            startRenderThreadRotation();
+        } else {
+            super.removeCallbacks(mRotationRestartRunnable);
+            super.animate().cancel();
+            super.setRotation(mRotationBeforeRotation);
+            super.setPivotX(mPivotXBeforeRotation);
+            super.setPivotY(mPivotYBeforeRotation);
+            super.setLayerType(mLayerTypeBeforeRotation, null);
+            mRenderer.setFrameIndex(super.getAnimationController().getFrameIndex());
         }
+        super.invalidate();
+    }
 
-        post(new Runnable() {
-
-            @Override
-            public void run() {
-                requestLayout();
-            }
-        });
+    private void updateRotationPivot() {
+        //the rotation center of the view is the same as the frame rotation
+        Rect bounds = mRenderer.getBounds();
+        super.setPivotX(bounds.exactCenterX());
+        super.setPivotY(bounds.exactCenterY());
     }
 
-    /**
-     * set the rotate image by resource id
-     * @param resId the image resource id
-     */
-    public final void setImageResource(int resId) {
-        Drawable drawable = ContextCompat.getDrawable(getContext(), resId);
-        if (drawable == null) {
-            throw new RuntimeException("the resource with id " + resId + " is not found");
+    @TargetApi(21)
+    private void startRenderThreadRotation() {
+        float rotateStep = mRenderer.getRotateStep();
+        float stepCount = 360f / Math.abs(rotateStep);
+        long turnDuration = (long) (stepCount * Math.max(mInvalidDelayTime, LoadingFrameClock.MIN_FRAME_INTERVAL_MILLIS));
+        if (turnDuration <= 0L) {
+            return;
         }
 
-        if (drawable instanceof BitmapDrawable) {
-            BitmapDrawable bitmapDrawable = (BitmapDrawable) drawable;
-            setImageBitmap(bitmapDrawable.getBitmap());
+        int turnCount = (int) Math.max(MAX_RENDER_THREAD_ROTATION_DURATION / turnDuration, 1L);
+        TimeInterpolator interpolator;
+        if (stepCount == (int) stepCount) {
+            //keep the rotation in steps, as the same as the frame rotation
+            interpolator = obtainRotationInterpolator((int) stepCount * turnCount);
         } else {
-            int w = drawable.getIntrinsicWidth();
-            int h = drawable.getIntrinsicHeight();
-            Bitmap bitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
-            Canvas canvas = new Canvas(bitmap);
-            drawable.setBounds(0, 0, w, h);
-            drawable.draw(canvas);
-
-            setImageBitmap(bitmap);
+            interpolator = LINEAR_INTERPOLATOR;
+        }
+
+        long duration = turnDuration * turnCount;
+        super.removeCallbacks(mRotationRestartRunnable);
+        super.setRotation(mRotationBeforeRotation);
+        //any listener makes the animation run on the main thread
+        super.animate()
+                .rotationBy(Math.signum(rotateStep) * 360f * turnCount)
+                .setDuration(duration)
+                .setStartDelay(0L)
+                .setInterpolator(interpolator)
+                .setListener(null)
+                .setUpdateListener(null)
+                .start();
+        //the animation ends at the start rotation after the whole turns
+        super.postDelayed(mRotationRestartRunnable, duration);
+    }
+
+    private TimeInterpolator obtainRotationInterpolator(int stepCount) {
+        if (mRotationInterpolator == null || mRotationInterpolator.mStepCount != stepCount) {
+            mRotationInterpolator = new StepInterpolator(stepCount);
         }
+        return mRotationInterpolator;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mRenderer.releaseCaches();
     }
 
     /**
-     * set the view invalidate time delay
-     * @param delayTimeMills the unit is milliseconds,
-     *                       if negative number is set, do nothing.
-     *                       the view will invalidate faster if the value is small
+     * the callback of the async image, the view is held weakly,
+     * so a view detached and dropped during the loading is not kept by {@link LoadingBitmapCache}
      */
-    public final void setInvalidateDelayTime(long delayTimeMills) {
-        if (delayTimeMills < 0) {
-            return;
+    private static final class AsyncImageCallback implements LoadingBitmapCache.Callback {
+
+        private final WeakReference<RotateLoadingView> mViewRef;
+        private final int mResId;
+        private final int mTargetWidth;
+        private final int mTargetHeight;
+
+        AsyncImageCallback(RotateLoadingView view, int resId, int targetWidth, int targetHeight) {
+            mViewRef = new WeakReference<RotateLoadingView>(view);
+            mResId = resId;
+            mTargetWidth = targetWidth;
+            mTargetHeight = targetHeight;
         }
 
-        mInvalidDelayTime = delayTimeMills;
-        initMatrix();
-        super.invalidate();
+        @Override
+        public void onBitmapLoaded(Bitmap bitmap) {
+            RotateLoadingView view = mViewRef.get();
+            if (view == null || mResId != view.mAsyncResId
+                    || mTargetWidth != view.mAsyncTargetWidth || mTargetHeight != view.mAsyncTargetHeight) {
+                return;
+            }
+
+            if (bitmap == null) {
+                view.onAsyncImageFailed(mResId);
+            } else {
+                view.onAsyncImageLoaded(bitmap);
+            }
+        }
     }
 
     /**
-     * set the rotate step during invalid
-     * @param rotateStep the rotate step
+     * the interpolator makes the animation jumps in steps
      */
-    public final void setRotateStep(float rotateStep) {
-        mRotateStep = rotateStep;
-        initMatrix();
-        super.invalidate();
+    private static final class StepInterpolator implements TimeInterpolator {
+
+        private final int mStepCount;
+
+        StepInterpolator(int stepCount) {
+            mStepCount = stepCount;
+        }
+
+        @Override
+        public float getInterpolation(float input) {
+            return ((int) (input * mStepCount)) / (float) mStepCount;
+        }
     }
 }
-
@@ -0,0 +1,191 @@
+package com.shinezhang.android.loading;
+
+import android.graphics.Bitmap;
+import android.graphics.Matrix;
+import android.graphics.Rect;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Created by ShineZhang on 2017/3/15.
+ *
+ * <p>the process wide cache of the pre-rotated frames of the rotate loading,
+ * the loadings with the same bitmap, bounds size and rotate step share one strip.
+ * <br/>the strip is reference counted by the renderers using it, the strip without reference is kept
+ * until the total size exceeds the memory budget, then it is evicted by LRU.
+ *
+ * @see RotateLoadingRenderer#setSpriteEnabled(boolean)
+ */
+public final class RotateSpriteCache {
+
+    /**
+     * the default memory budget in bytes
+     */
+    public static final int DEFAULT_MEMORY_BUDGET                   = 4 * 1024 * 1024;
+
+    /**
+     * the max width of a strip, the larger strip can not be uploaded as a texture on some devices
+     */
+    private static final int MAX_STRIP_WIDTH                        = 4096;
+
+    private static final RotateSpriteCache sInstance                = new RotateSpriteCache();
+
+    /**
+     * the strips by access order, the eldest is the first
+     */
+    private final LinkedHashMap<Key, RotateSpriteStrip> mStripMap   = new LinkedHashMap<Key, RotateSpriteStrip>(8, 0.75f, true);
+    private int mMemoryBudget                                       = DEFAULT_MEMORY_BUDGET;
+    private int mSize;
+
+    private RotateSpriteCache() {
+    }
+
+    public static RotateSpriteCache getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * set the max bytes of all the strips, the strip in use is never evicted,
+     * the strip larger than the budget will not be created and the renderer rotates the bitmap directly
+     * @param memoryBudget the budget in bytes, 0 to disable the cache
+     */
+    public synchronized void setMemoryBudget(int memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("memory budget can not be negative");
+        }
+
+        mMemoryBudget = memoryBudget;
+        trimToSize(mMemoryBudget);
+    }
+
+    /**
+     * get the max bytes of all the strips
+     * @return the budget in bytes
+     */
+    public synchronized int getMemoryBudget() {
+        return mMemoryBudget;
+    }
+
+    /**
+     * get the current bytes of all the strips
+     * @return the size in bytes
+     */
+    public synchronized int getSize() {
+        return mSize;
+    }
+
+    /**
+     * evict all the strips not in use, it can be called when the memory is low
+     */
+    public synchronized void evictUnused() {
+        trimToSize(0);
+    }
+
+    /**
+     * acquire the strip of the config, the strip is rendered if not cached, the reference count is increased
+     * @param bitmap the rotate bitmap
+     * @param baseMatrix the matrix to scale the bitmap into the bounds
+     * @param arrayStepMatrix the draw matrix of each step
+     * @param bounds the draw bounds
+     * @param rotateStep the rotate step
+     * @return the strip, null if the strip is too large
+     */
+    /* package */ synchronized RotateSpriteStrip acquire(Bitmap bitmap, Matrix baseMatrix, Matrix[] arrayStepMatrix,
+                                                         Rect bounds, float rotateStep) {
+        Key key = new Key(bitmap, bounds.width(), bounds.height(), rotateStep);
+        RotateSpriteStrip strip = mStripMap.get(key);
+        if (strip == null) {
+            int frameSize = RotateSpriteStrip.computeFrameSize(bitmap, baseMatrix);
+            int stripWidth = frameSize * arrayStepMatrix.length;
+            if (stripWidth > MAX_STRIP_WIDTH || stripWidth * frameSize * 4 > mMemoryBudget) {
+                return null;
+            }
+
+            strip = RotateSpriteStrip.render(key, bitmap, arrayStepMatrix, bounds, frameSize);
+            mStripMap.put(key, strip);
+            mSize += strip.getByteCount();
+        }
+
+        strip.mRefCount++;
+        trimToSize(mMemoryBudget);
+        return strip;
+    }
+
+    /**
+     * release the strip acquired by {@link #acquire(Bitmap, Matrix, Matrix[], Rect, float)},
+     * the reference count is decreased
+     * @param strip the strip to release
+     */
+    /* package */ synchronized void release(RotateSpriteStrip strip) {
+        if (strip.mRefCount <= 0) {
+            throw new IllegalStateException("the strip is released more than acquired");
+        }
+
+        strip.mRefCount--;
+        trimToSize(mMemoryBudget);
+    }
+
+    private void trimToSize(int maxSize) {
+        Iterator<Map.Entry<Key, RotateSpriteStrip>> iterator = mStripMap.entrySet().iterator();
+        while (mSize > maxSize && iterator.hasNext()) {
+            RotateSpriteStrip strip = iterator.next().getValue();
+            if (strip.mRefCount > 0) {
+                continue;
+            }
+
+            mSize -= strip.getByteCount();
+            strip.recycle();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * the config of the strip, the bitmap is compared by identity and generation id
+     */
+    /* package */ static final class Key {
+
+        private final Bitmap mBitmap;
+        private final int mGenerationId;
+        private final int mWidth;
+        private final int mHeight;
+        private final float mRotateStep;
+
+        private Key(Bitmap bitmap, int width, int height, float rotateStep) {
+            mBitmap = bitmap;
+            mGenerationId = bitmap.getGenerationId();
+            mWidth = width;
+            mHeight = height;
+            mRotateStep = rotateStep;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return mBitmap == key.mBitmap
+                    && mGenerationId == key.mGenerationId
+                    && mWidth == key.mWidth
+                    && mHeight == key.mHeight
+                    && Float.compare(mRotateStep, key.mRotateStep) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(mBitmap);
+            result = 31 * result + mGenerationId;
+            result = 31 * result + mWidth;
+            result = 31 * result + mHeight;
+            result = 31 * result + Float.floatToIntBits(mRotateStep);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.shinezhang.android.loading;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Created by ShineZhang on 2017/3/15.
+ *
+ * <p>the pre-rotated frames of the rotate loading, each step is rendered once at the final draw size
+ * into a square cell of the strip, then drawing a frame is an axis aligned blit without scaling and filtering.
+ * <br/>the frames are relative to the bounds, so the loadings with the same bounds size share the strip,
+ * it is immutable after rendered, see {@link RotateSpriteCache}.
+ */
+/* package */ final class RotateSpriteStrip {
+
+    private final RotateSpriteCache.Key mKey;
+    private final Bitmap mStrip;
+    private final int mFrameCount;
+    private final int mFrameSize;
+
+    /**
+     * the left and top of the cells relative to the bounds
+     */
+    private final int mFrameLeft;
+    private final int mFrameTop;
+
+    private final Rect mRectSrc                                     = new Rect();
+    private final Rect mRectDst                                     = new Rect();
+
+    /* package */ int mRefCount;
+
+    private RotateSpriteStrip(RotateSpriteCache.Key key, Bitmap strip, int frameCount, int frameSize,
+                              int frameLeft, int frameTop) {
+        mKey = key;
+        mStrip = strip;
+        mFrameCount = frameCount;
+        mFrameSize = frameSize;
+        mFrameLeft = frameLeft;
+        mFrameTop = frameTop;
+    }
+
+    /**
+     * compute the cell size which can hold the bitmap in any rotation
+     * @param bitmap the rotate bitmap
+     * @param baseMatrix the matrix to scale the bitmap into the bounds
+     * @return the size in pixel
+     */
+    /* package */ static int computeFrameSize(Bitmap bitmap, Matrix baseMatrix) {
+        RectF rect = new RectF(0f, 0f, bitmap.getWidth(), bitmap.getHeight());
+        baseMatrix.mapRect(rect);
+        //1 pixel more on each side for the filtered edge
+        return (int) Math.ceil(Math.hypot(rect.width(), rect.height())) + 2;
+    }
+
+    /**
+     * render all the steps into a new strip
+     * @param key the cache key
+     * @param bitmap the rotate bitmap
+     * @param arrayStepMatrix the draw matrix of each step
+     * @param bounds the draw bounds
+     * @param frameSize the cell size, see {@link #computeFrameSize(Bitmap, Matrix)}
+     * @return the strip
+     */
+    /* package */ static RotateSpriteStrip render(RotateSpriteCache.Key key, Bitmap bitmap, Matrix[] arrayStepMatrix,
+                                                  Rect bounds, int frameSize) {
+        LoadingTrace.beginSection(LoadingTrace.SECTION_ROTATE_SPRITE);
+        try {
+            return renderStrip(key, bitmap, arrayStepMatrix, bounds, frameSize);
+        } finally {
+            LoadingTrace.endSection();
+        }
+    }
+
+    private static RotateSpriteStrip renderStrip(RotateSpriteCache.Key key, Bitmap bitmap, Matrix[] arrayStepMatrix,
+                                                 Rect bounds, int frameSize) {
+        int frameCount = arrayStepMatrix.length;
+        int frameLeft = (int) Math.floor((bounds.width() - frameSize) * 0.5f);
+        int frameTop = (int) Math.floor((bounds.height() - frameSize) * 0.5f);
+
+        Bitmap strip = Bitmap.createBitmap(frameSize * frameCount, frameSize, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(strip);
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+        Matrix matrix = new Matrix();
+        for (int i = 0; i < frameCount; i++) {
+            //move the cell of the bounds to the cell of the strip
+            matrix.set(arrayStepMatrix[i]);
+            matrix.postTranslate(i * frameSize - bounds.left - frameLeft, -bounds.top - frameTop);
+            canvas.drawBitmap(bitmap, matrix, paint);
+        }
+
+        return new RotateSpriteStrip(key, strip, frameCount, frameSize, frameLeft, frameTop);
+    }
+
+    /* package */ RotateSpriteCache.Key getKey() {
+        return mKey;
+    }
+
+    /* package */ int getByteCount() {
+        return mStrip.getRowBytes() * mStrip.getHeight();
+    }
+
+    /**
+     * draw the frame of the step
+     * @param canvas the canvas to draw
+     * @param stepIndex the step index
+     * @param bounds the draw bounds
+     * @param paint the paint of the bitmap
+     */
+    /* package */ void draw(Canvas canvas, long stepIndex, Rect bounds, Paint paint) {
+        int frameIndex = (int) (stepIndex % mFrameCount);
+        mRectSrc.set(frameIndex * mFrameSize, 0, (frameIndex + 1) * mFrameSize, mFrameSize);
+        int left = bounds.left + mFrameLeft;
+        int top = bounds.top + mFrameTop;
+        mRectDst.set(left, top, left + mFrameSize, top + mFrameSize);
+        canvas.drawBitmap(mStrip, mRectSrc, mRectDst, paint);
+    }
+
+    /**
+     * recycle the strip, it can not be used any more
+     */
+    /* package */ void recycle() {
+        mStrip.recycle();
+    }
+}
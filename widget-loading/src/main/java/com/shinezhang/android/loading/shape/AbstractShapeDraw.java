@@ -3,6 +3,7 @@ package com.shinezhang.android.loading.shape;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Path;
+import android.os.Build;
 
 /**
  * Created by ShineZhang on 2017/2/20.
@@ -10,8 +11,14 @@ import android.graphics.Path;
 
 /* package */ abstract class AbstractShapeDraw {
 
+    /**
+     * the hardware canvas draws the vertices since Q
+     */
+    private static final int VERTICES_HARDWARE_SDK_INT              = 29;
+
     private float mShapeRadius = -1f;
     private Path mPath;
+    private boolean mIsVertexDrawEnabled;
 
     /**
      * set the shape radius, the shape will draw in the circle with the assigned radius
@@ -22,29 +29,71 @@ import android.graphics.Path;
             throw new IllegalArgumentException("radius should be positive number");
         }
 
-        if (mPath == null) {
-            mPath = new Path();
-        }
-
         if (radius != mShapeRadius) {
             mShapeRadius = radius;
-            mPath.reset();
-            initPath(mPath, mShapeRadius);
+            //the path is obtained when it is drawn, the shapes drawn without path never build it
+            mPath = null;
+            onRadiusChanged(radius);
         }
     }
 
     /**
-     * get the final draw path
-     * @return the path ready to draw
+     * called when the radius is changed, prepare the geometry of the radius in sub class
+     * @param radius the new radius
+     */
+    protected void onRadiusChanged(float radius) {
+    }
+
+    /**
+     * get the final draw path, the path is shared by the shapes with the same side count and radius
+     * @return the path ready to draw, do not modify it
      */
     protected final Path getPath() {
-        if (mPath == null) {
+        if (mShapeRadius <= 0f) {
             throw new RuntimeException("you should call setRadius() first");
         }
 
+        if (mPath == null) {
+            mPath = ShapePathCache.obtainPath(this, mShapeRadius);
+        }
         return mPath;
     }
 
+    /**
+     * build the geometry of current radius in advance, it can be called in background thread
+     */
+    /* package */ void prepare() {
+        getPath();
+    }
+
+    /**
+     * draw the shape by the vertices instead of the path if supported, it is disabled by default,
+     * the vertices are not anti aliased
+     * @param enabled true to enable
+     */
+    /* package */ final void setVertexDrawEnabled(boolean enabled) {
+        mIsVertexDrawEnabled = enabled;
+    }
+
+    /**
+     * whether the shape is drawn by the vertices when the canvas supports it
+     * @return true if enabled
+     */
+    protected final boolean isVertexDrawEnabled() {
+        return mIsVertexDrawEnabled;
+    }
+
+    /**
+     * whether the shape can be drawn by the vertices on the canvas,
+     * the hardware canvas supports {@link Canvas#drawVertices} since api 29
+     * @param canvas the canvas to draw
+     * @return true if the vertex draw is enabled and supported
+     */
+    protected final boolean canDrawVertices(Canvas canvas) {
+        return mIsVertexDrawEnabled
+                && (!canvas.isHardwareAccelerated() || Build.VERSION.SDK_INT >= VERTICES_HARDWARE_SDK_INT);
+    }
+
     /**
      * get the shape radius
      * @return the radius
@@ -54,7 +103,20 @@ import android.graphics.Path;
     }
 
     /**
-     * initial the path with assigned radius, create the shape in sub class
+     * get the side count of the shape
+     * @return the side count, 0 means a circle
+     */
+    /* package */ abstract int getSideCount();
+
+    /**
+     * get the max rotate degree during throw up or fall down
+     * @return the degree, negative value means rotate anticlockwise
+     */
+    /* package */ abstract float getMaxRotateDegree();
+
+    /**
+     * initial the path with assigned radius, create the shape in sub class,
+     * the path should only depend on the side count and the radius, see {@link ShapePathCache}
      * @param path the empty path is ready to create
      * @param radius the shape radius
      */
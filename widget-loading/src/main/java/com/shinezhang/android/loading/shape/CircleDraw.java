@@ -10,13 +10,32 @@ import android.graphics.Path;
 
 /* package */ class CircleDraw extends AbstractShapeDraw {
 
+    private static final float CIRCLE_RADIUS_RATIO                  = 0.8f;
+
+    @Override
+    /* package */ int getSideCount() {
+        return 0;
+    }
+
+    @Override
+    /* package */ float getMaxRotateDegree() {
+        return 0f;
+    }
+
+    @Override
+    /* package */ void prepare() {
+        //the circle is drawn directly, the path is never used
+    }
+
     @Override
     protected void initPath(Path path, float radius) {
-        path.addCircle(radius, radius, radius * 0.8f, Path.Direction.CW);
+        path.addCircle(radius, radius, radius * CIRCLE_RADIUS_RATIO, Path.Direction.CW);
     }
 
     @Override
     public void draw(Canvas canvas, Paint paint, float ratio) {
-        canvas.drawPath(super.getPath(), paint);
+        //the circle is drawn directly, no path mask is rasterised for it
+        float radius = super.getRadius();
+        canvas.drawCircle(radius, radius, radius * CIRCLE_RADIUS_RATIO, paint);
     }
 }
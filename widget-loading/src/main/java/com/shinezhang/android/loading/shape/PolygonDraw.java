@@ -4,6 +4,9 @@ import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Path;
 
+import com.shinezhang.android.loading.core.PathSink;
+import com.shinezhang.android.loading.core.PolygonGeometry;
+
 /**
  * Created by ShineZhang on 2017/2/20.
  */
@@ -17,6 +20,16 @@ import android.graphics.Path;
      */
     private final int mSideCount;
 
+    /**
+     * the triangle fan of the polygon, the center and the vertices, the first vertex is repeated at the end
+     */
+    private final float[] mArrayFanVertex;
+    private final FanVertexSink mFanVertexSink;
+    /**
+     * the fan is filled when it is drawn, the shapes drawn by the path never fill it
+     */
+    private boolean mIsFanVertexDirty                               = true;
+
     public PolygonDraw(int sideCount) {
         this(sideCount, 360f);
     }
@@ -27,43 +40,111 @@ import android.graphics.Path;
         if (mSideCount <= 2) {
             throw new IllegalArgumentException("side count should be larger than 2");
         }
+
+        mArrayFanVertex = new float[(sideCount + 2) * 2];
+        mFanVertexSink = new FanVertexSink(mArrayFanVertex);
     }
 
     @Override
-    protected void initPath(Path path, float radius) {
-        final float rotateDegreeByStep = 360f / mSideCount;
-        float rotatedDegree;
-        double radians;
-        float x;
-        float y;
-
-        if ((mSideCount & 0x1) == 0x0) {
-            rotatedDegree = rotateDegreeByStep * 0.5f;
-            radians = Math.toRadians(rotatedDegree);
-            x = (float) (radius + radius * Math.sin(radians));
-            y = (float) (radius - radius * Math.cos(radians));
-            path.moveTo(x, y);
-        } else {
-            rotatedDegree = 0f;
-            path.moveTo(radius, 0);
-        }
+    /* package */ int getSideCount() {
+        return mSideCount;
+    }
+
+    @Override
+    /* package */ float getMaxRotateDegree() {
+        return mMaxRotateDegree;
+    }
+
+    @Override
+    protected void initPath(final Path path, float radius) {
+        PolygonGeometry.build(mSideCount, radius, new PathSink() {
+            @Override
+            public void moveTo(float x, float y) {
+                path.moveTo(x, y);
+            }
+
+            @Override
+            public void lineTo(float x, float y) {
+                path.lineTo(x, y);
+            }
+
+            @Override
+            public void close() {
+                path.close();
+            }
+        });
+    }
+
+    @Override
+    protected void onRadiusChanged(float radius) {
+        mIsFanVertexDirty = true;
+    }
 
-        for (int i = 1; i < mSideCount; i++) {
-            rotatedDegree += rotateDegreeByStep;
-            radians = Math.toRadians(rotatedDegree);
-            x = (float) (radius + radius * Math.sin(radians));
-            y = (float) (radius - radius * Math.cos(radians));
-            path.lineTo(x, y);
+    @Override
+    /* package */ void prepare() {
+        super.prepare();
+        if (super.isVertexDrawEnabled()) {
+            obtainFanVertices();
         }
+    }
 
-        path.close();
+    /**
+     * get the triangle fan of current radius, it is filled if the radius is changed
+     * @return the fan vertices
+     */
+    private float[] obtainFanVertices() {
+        if (mIsFanVertexDirty) {
+            float radius = super.getRadius();
+            mArrayFanVertex[0] = radius;
+            mArrayFanVertex[1] = radius;
+            mFanVertexSink.mPosition = 2;
+            PolygonGeometry.build(mSideCount, radius, mFanVertexSink);
+            mIsFanVertexDirty = false;
+        }
+        return mArrayFanVertex;
     }
 
     @Override
     public void draw(Canvas canvas, Paint paint, float ratio) {
         float radius = super.getRadius();
         canvas.rotate(ratio * mMaxRotateDegree, radius, radius);
-        canvas.drawPath(super.getPath(), paint);
+        if (super.canDrawVertices(canvas)) {
+            float[] arrayFanVertex = obtainFanVertices();
+            canvas.drawVertices(Canvas.VertexMode.TRIANGLE_FAN, arrayFanVertex.length, arrayFanVertex, 0,
+                    null, 0, null, 0, null, 0, 0, paint);
+        } else {
+            canvas.drawPath(super.getPath(), paint);
+        }
+    }
+
+    /**
+     * write the polygon into the fan array after the center
+     */
+    private static final class FanVertexSink implements PathSink {
+
+        private final float[] mArrayVertex;
+        private int mPosition;
+
+        FanVertexSink(float[] arrayVertex) {
+            mArrayVertex = arrayVertex;
+        }
+
+        @Override
+        public void moveTo(float x, float y) {
+            lineTo(x, y);
+        }
+
+        @Override
+        public void lineTo(float x, float y) {
+            mArrayVertex[mPosition++] = x;
+            mArrayVertex[mPosition++] = y;
+        }
+
+        @Override
+        public void close() {
+            //close the fan by the first vertex
+            lineTo(mArrayVertex[2], mArrayVertex[3]);
+        }
     }
 
 }
@@ -0,0 +1,245 @@
+package com.shinezhang.android.loading.shape;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import com.shinezhang.android.loading.LoadingTrace;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Created by ShineZhang on 2017/3/13.
+ *
+ * <p>the pre-rendered frames of the shapes, each distinct frame is rendered once into an alpha mask,
+ * then drawing a frame is only one {@link Canvas#drawBitmap(Bitmap, Rect, RectF, Paint)}, the color comes from the paint.
+ * <br/>the frames of each polygon are rendered into one strip when the polygon is used at the first time,
+ * the strip wraps into rows so it is not larger than the max texture size of the hardware canvas,
+ * the two polygons with the same side count but the opposite rotate direction share the strip by mirror,
+ * because all the polygons are symmetrical about the vertical axis.
+ * <br/>the atlas is immutable after rendered, it is shared by {@link ShapeFrameCache}.
+ */
+/* package */ final class ShapeFrameAtlas {
+
+    /**
+     * the extra space around each frame, so the anti alias pixels are not clipped
+     */
+    private static final int FRAME_MARGIN                           = 1;
+
+    /**
+     * the max width and height of a strip, a larger bitmap can not be drawn by the hardware canvas
+     */
+    private static final int MAX_STRIP_SIZE                         = 4096;
+
+    private final ShapeFrameCache.Key mKey;
+    private final int mRadius;
+    private final int mFrameSize;
+    private final int mColumnCount;
+    private final float[] mArrayStepRatio;
+
+    /**
+     * the frame strip of each side count, the index 0 is the circle
+     */
+    private final Bitmap[] mArrayFrameStrip;
+    private final Paint mPaintMask                                  = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final Rect mRectSrc                                     = new Rect();
+    private final RectF mRectDst                                    = new RectF();
+
+    private int mByteCount;
+
+    /**
+     * the holders which acquired the atlas, they are weak so a dropped holder does not keep the atlas forever
+     */
+    private final ArrayList<WeakReference<Object>> mHolders         = new ArrayList<WeakReference<Object>>();
+
+    /**
+     * create the atlas, the frames are not rendered until used
+     * @param key the cache key
+     * @param arrayStepRatio the throw ratio of each step, the range is in [0, 1]
+     */
+    /* package */ ShapeFrameAtlas(ShapeFrameCache.Key key, float[] arrayStepRatio) {
+        mKey = key;
+        mRadius = key.mRadius;
+        mFrameSize = mRadius * 2 + FRAME_MARGIN * 2;
+        mArrayStepRatio = arrayStepRatio;
+        mColumnCount = computeColumnCount(mFrameSize, arrayStepRatio.length);
+        mArrayFrameStrip = new Bitmap[Math.max(key.mMaxSideCount - 1, 1)];
+    }
+
+    /**
+     * compute the max bytes of the atlas when all the strips are rendered
+     * @param radius the shape radius
+     * @param maxSideCount the max polygon side count
+     * @param stepCount the step count of each bounce
+     * @return the byte count
+     */
+    /* package */ static long computeMaxByteCount(int radius, int maxSideCount, int stepCount) {
+        long frameSize = radius * 2L + FRAME_MARGIN * 2;
+        int polygonCount = Math.max(maxSideCount - 2, 0);
+        return frameSize * frameSize * (1L + (long) polygonCount * stepCount);
+    }
+
+    /**
+     * whether the frames can be laid out in the strips within {@link #MAX_STRIP_SIZE}
+     * @param radius the shape radius
+     * @param stepCount the step count of each bounce
+     * @return false if a strip is too large to draw, the shapes should be drawn by the paths
+     */
+    /* package */ static boolean canLayout(int radius, int stepCount) {
+        long frameSize = radius * 2L + FRAME_MARGIN * 2;
+        if (frameSize > MAX_STRIP_SIZE) {
+            return false;
+        }
+
+        int columnCount = computeColumnCount((int) frameSize, stepCount);
+        int rowCount = (stepCount + columnCount - 1) / columnCount;
+        return frameSize * rowCount <= MAX_STRIP_SIZE;
+    }
+
+    private static int computeColumnCount(int frameSize, int frameCount) {
+        return Math.max(Math.min(frameCount, MAX_STRIP_SIZE / frameSize), 1);
+    }
+
+    /* package */ ShapeFrameCache.Key getKey() {
+        return mKey;
+    }
+
+    /* package */ synchronized int getByteCount() {
+        return mByteCount;
+    }
+
+    /**
+     * add a holder of the atlas, it is called by {@link ShapeFrameCache} only
+     * @param holder the holder
+     */
+    /* package */ void addHolder(Object holder) {
+        mHolders.add(new WeakReference<Object>(holder));
+    }
+
+    /**
+     * remove a holder of the atlas, it is called by {@link ShapeFrameCache} only
+     * @param holder the holder
+     * @return false if the holder did not acquire the atlas
+     */
+    /* package */ boolean removeHolder(Object holder) {
+        for (int i = mHolders.size() - 1; i >= 0; i--) {
+            if (mHolders.get(i).get() == holder) {
+                mHolders.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * whether the atlas is held, the holders collected without releasing are removed
+     * @return true if any holder is alive
+     */
+    /* package */ boolean isHeld() {
+        Iterator<WeakReference<Object>> iterator = mHolders.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().get() == null) {
+                iterator.remove();
+            }
+        }
+        return !mHolders.isEmpty();
+    }
+
+    /**
+     * render all the frames, it can be called in background thread
+     */
+    /* package */ void renderAll() {
+        renderStrip(0);
+        for (int sideCount = 3; sideCount <= mKey.mMaxSideCount; sideCount++) {
+            renderStrip(sideCount);
+        }
+    }
+
+    /**
+     * draw the frame of the shape
+     * @param canvas the canvas to draw
+     * @param shapeDraw the shape to draw, only the side count and the rotate direction are used
+     * @param stepIndex the step index in the bounce
+     * @param left the left of the shape
+     * @param top the top of the shape
+     * @param paint the paint of the shape
+     */
+    /* package */ void draw(Canvas canvas, AbstractShapeDraw shapeDraw, int stepIndex, float left, float top, Paint paint) {
+        int sideCount = shapeDraw.getSideCount();
+        Bitmap strip = renderStrip(sideCount);
+
+        int frameIndex = (sideCount == 0) ? 0 : stepIndex;
+        int frameLeft = (frameIndex % mColumnCount) * mFrameSize;
+        int frameTop = (frameIndex / mColumnCount) * mFrameSize;
+        mRectSrc.set(frameLeft, frameTop, frameLeft + mFrameSize, frameTop + mFrameSize);
+        mRectDst.set(left - FRAME_MARGIN, top - FRAME_MARGIN,
+                left - FRAME_MARGIN + mFrameSize, top - FRAME_MARGIN + mFrameSize);
+
+        if (shapeDraw.getMaxRotateDegree() < 0f) {
+            //the opposite direction is the mirror of the strip
+            final int saveCount = canvas.save();
+            canvas.scale(-1f, 1f, left + mRadius, 0f);
+            canvas.drawBitmap(strip, mRectSrc, mRectDst, paint);
+            canvas.restoreToCount(saveCount);
+        } else {
+            canvas.drawBitmap(strip, mRectSrc, mRectDst, paint);
+        }
+    }
+
+    private synchronized Bitmap renderStrip(int sideCount) {
+        int stripIndex = (sideCount == 0) ? 0 : (sideCount - 2);
+        Bitmap strip = mArrayFrameStrip[stripIndex];
+        if (strip != null) {
+            return strip;
+        }
+
+        LoadingTrace.beginSection(LoadingTrace.SECTION_SHAPE_FRAME_ATLAS);
+        try {
+            AbstractShapeDraw shapeDraw;
+            int frameCount;
+            if (sideCount == 0) {
+                shapeDraw = new CircleDraw();
+                frameCount = 1;
+            } else {
+                shapeDraw = new PolygonDraw(sideCount, mKey.mMaxRotateDegree);
+                frameCount = mArrayStepRatio.length;
+            }
+            shapeDraw.setRadius(mRadius);
+
+            int columnCount = Math.min(frameCount, mColumnCount);
+            int rowCount = (frameCount + columnCount - 1) / columnCount;
+            strip = Bitmap.createBitmap(mFrameSize * columnCount, mFrameSize * rowCount, Bitmap.Config.ALPHA_8);
+            Canvas canvas = new Canvas(strip);
+            for (int i = 0; i < frameCount; i++) {
+                final int saveCount = canvas.save();
+                canvas.translate((i % columnCount) * mFrameSize + FRAME_MARGIN, (i / columnCount) * mFrameSize + FRAME_MARGIN);
+                shapeDraw.draw(canvas, mPaintMask, mArrayStepRatio[i]);
+                canvas.restoreToCount(saveCount);
+            }
+        } finally {
+            LoadingTrace.endSection();
+        }
+
+        mArrayFrameStrip[stripIndex] = strip;
+        mByteCount += strip.getRowBytes() * strip.getHeight();
+        return strip;
+    }
+
+    /**
+     * recycle all the strips, the atlas can not be used any more
+     */
+    /* package */ synchronized void recycle() {
+        for (int i = 0; i < mArrayFrameStrip.length; i++) {
+            if (mArrayFrameStrip[i] != null) {
+                mArrayFrameStrip[i].recycle();
+                mArrayFrameStrip[i] = null;
+            }
+        }
+        mByteCount = 0;
+    }
+}
@@ -0,0 +1,182 @@
+package com.shinezhang.android.loading.shape;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Created by ShineZhang on 2017/3/13.
+ *
+ * <p>the process wide cache of the pre-rendered shape frames, the shape loadings with the same radius,
+ * polygon side count, rotate degree and interpolator factor share one atlas, the colors are not a part of the key
+ * because the frames are alpha masks.
+ * <br/>the atlas is held by the renderers using it, the atlas without holder is kept
+ * until the total size exceeds the memory budget, then it is evicted by LRU.
+ * <br/>the holders are weak references, the atlas of a renderer dropped without releasing is evictable after it is collected.
+ *
+ * @see ShapeLoadingRenderer#setFrameCacheEnabled(boolean)
+ */
+public final class ShapeFrameCache {
+
+    /**
+     * the default memory budget in bytes
+     */
+    public static final int DEFAULT_MEMORY_BUDGET                   = 8 * 1024 * 1024;
+
+    private static final ShapeFrameCache sInstance                  = new ShapeFrameCache();
+
+    /**
+     * the atlases by access order, the eldest is the first
+     */
+    private final LinkedHashMap<Key, ShapeFrameAtlas> mAtlasMap     = new LinkedHashMap<Key, ShapeFrameAtlas>(8, 0.75f, true);
+    private int mMemoryBudget                                       = DEFAULT_MEMORY_BUDGET;
+
+    private ShapeFrameCache() {
+    }
+
+    public static ShapeFrameCache getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * set the max bytes of all the atlases, the atlas in use is never evicted,
+     * the atlas larger than the budget will not be created and the renderer draws the shape directly
+     * @param memoryBudget the budget in bytes, 0 to disable the cache
+     */
+    public synchronized void setMemoryBudget(int memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("memory budget can not be negative");
+        }
+
+        mMemoryBudget = memoryBudget;
+        trimToSize(mMemoryBudget);
+    }
+
+    /**
+     * get the max bytes of all the atlases
+     * @return the budget in bytes
+     */
+    public synchronized int getMemoryBudget() {
+        return mMemoryBudget;
+    }
+
+    /**
+     * get the current bytes of all the atlases
+     * @return the size in bytes
+     */
+    public synchronized int getSize() {
+        int size = 0;
+        for (ShapeFrameAtlas atlas : mAtlasMap.values()) {
+            size += atlas.getByteCount();
+        }
+        return size;
+    }
+
+    /**
+     * evict all the atlases not in use, it can be called when the memory is low
+     */
+    public synchronized void evictUnused() {
+        trimToSize(0);
+    }
+
+    /**
+     * acquire the atlas of the key for the holder
+     * @param key the config of the shapes
+     * @param arrayStepRatio the throw ratio of each step, it is used when the atlas is created
+     * @param holder the holder of the atlas, it should release the atlas by {@link #release(ShapeFrameAtlas, Object)}
+     * @return the atlas, null if the atlas is larger than the memory budget or the max texture size
+     */
+    /* package */ synchronized ShapeFrameAtlas acquire(Key key, float[] arrayStepRatio, Object holder) {
+        ShapeFrameAtlas atlas = mAtlasMap.get(key);
+        if (atlas == null) {
+            long maxByteCount = ShapeFrameAtlas.computeMaxByteCount(key.mRadius, key.mMaxSideCount, arrayStepRatio.length);
+            if (maxByteCount > mMemoryBudget || !ShapeFrameAtlas.canLayout(key.mRadius, arrayStepRatio.length)) {
+                return null;
+            }
+
+            atlas = new ShapeFrameAtlas(key, arrayStepRatio);
+            mAtlasMap.put(key, atlas);
+        }
+
+        atlas.addHolder(holder);
+        return atlas;
+    }
+
+    /**
+     * release the atlas acquired by {@link #acquire(Key, float[], Object)}
+     * @param atlas the atlas to release
+     * @param holder the holder of the atlas
+     */
+    /* package */ synchronized void release(ShapeFrameAtlas atlas, Object holder) {
+        if (!atlas.removeHolder(holder)) {
+            throw new IllegalStateException("the atlas is released more than acquired");
+        }
+
+        trimToSize(mMemoryBudget);
+    }
+
+    private void trimToSize(int maxSize) {
+        int size = getSize();
+        Iterator<Map.Entry<Key, ShapeFrameAtlas>> iterator = mAtlasMap.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            ShapeFrameAtlas atlas = iterator.next().getValue();
+            if (atlas.isHeld()) {
+                continue;
+            }
+
+            size -= atlas.getByteCount();
+            atlas.recycle();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * the config of the shapes which affects the pixels of the frames
+     */
+    /* package */ static final class Key {
+
+        /* package */ final int mRadius;
+        /* package */ final int mMaxSideCount;
+        /* package */ final float mMaxRotateDegree;
+        /* package */ final float mInterpolatorFactor;
+
+        /**
+         * @param radius the shape radius
+         * @param maxSideCount the max polygon side count, it should be 0 if only a circle exists
+         * @param maxRotateDegree the max rotate degree, the sign is ignored
+         * @param interpolatorFactor the interpolator factor
+         */
+        /* package */ Key(int radius, int maxSideCount, float maxRotateDegree, float interpolatorFactor) {
+            mRadius = radius;
+            mMaxSideCount = maxSideCount;
+            mMaxRotateDegree = Math.abs(maxRotateDegree);
+            mInterpolatorFactor = interpolatorFactor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return mRadius == key.mRadius
+                    && mMaxSideCount == key.mMaxSideCount
+                    && Float.compare(mMaxRotateDegree, key.mMaxRotateDegree) == 0
+                    && Float.compare(mInterpolatorFactor, key.mInterpolatorFactor) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mRadius;
+            result = 31 * result + mMaxSideCount;
+            result = 31 * result + Float.floatToIntBits(mMaxRotateDegree);
+            result = 31 * result + Float.floatToIntBits(mInterpolatorFactor);
+            return result;
+        }
+    }
+}
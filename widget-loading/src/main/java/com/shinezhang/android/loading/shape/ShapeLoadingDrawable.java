@@ -0,0 +1,124 @@
+package com.shinezhang.android.loading.shape;
+
+import android.content.Context;
+
+import com.shinezhang.android.loading.AbstractLoadingDrawable;
+import com.shinezhang.android.loading.LoadingFrameClock;
+
+/**
+ * Created by ShineZhang on 2017/3/9.
+ *
+ * <p>the drawable version of {@link ShapeLoadingView}
+ */
+public class ShapeLoadingDrawable extends AbstractLoadingDrawable {
+
+    private final ShapeLoadingRenderer mRenderer;
+
+    public ShapeLoadingDrawable(Context context) {
+        this(new ShapeLoadingRenderer(context));
+    }
+
+    private ShapeLoadingDrawable(ShapeLoadingRenderer renderer) {
+        super(renderer);
+        mRenderer = renderer;
+        setInvalidDelayTime(ShapeLoadingRenderer.DEFAULT_INVALID_DELAY_TIME);
+    }
+
+    /**
+     * set the time of each animation step,
+     * the value smaller than {@link LoadingFrameClock#MIN_FRAME_INTERVAL_MILLIS} is treated as one frame
+     * @param delayTimeMills the delay time, if the value is negative, the value will be ignored
+     */
+    public final void setInvalidDelayTime(long delayTimeMills) {
+        if (delayTimeMills < 0L) {
+            //not allow negative number
+            return;
+        }
+        super.getAnimationController().setFrameDuration(delayTimeMills);
+    }
+
+    /**
+     * set the shape color
+     * @param color the color of shape
+     */
+    public final void setShapeColor(int color) {
+        mRenderer.setShapeColor(color);
+        super.invalidateSelf();
+    }
+
+    /**
+     * set the bottom shadow color
+     * @param color the color of shadow
+     */
+    public final void setShadowColor(int color) {
+        mRenderer.setShadowColor(color);
+        super.invalidateSelf();
+    }
+
+    /**
+     * set the bottom shadow height(px value)
+     * @param height the height of shadow
+     */
+    public final void setShadowHeight(int height) {
+        mRenderer.setShadowHeight(height);
+        super.invalidateSelf();
+    }
+
+    /**
+     * set the extra space between the bottom shadow and shape
+     * @param space the height of the space
+     */
+    public final void setShadowTopSpace(int space) {
+        mRenderer.setShadowTopSpace(space);
+        super.invalidateSelf();
+    }
+
+    /**
+     * init the shape array by polygon side count and rotate degree
+     * @param maxAllowPolygonSideCount the value should be 0, 3, 4, 5, 6...
+     *                                 if the value is negative, do nothing;
+     *                                 if the value is 2, it will only exist a circle
+     *
+     * @param maxAllowRotateDegree the max allow rotate degree during throw up or fall down
+     */
+    public final void setPolygonSideCountAndRotateDegree(int maxAllowPolygonSideCount, float maxAllowRotateDegree) {
+        mRenderer.setPolygonSideCountAndRotateDegree(maxAllowPolygonSideCount, maxAllowRotateDegree);
+        resetState();
+    }
+
+    /**
+     * set the interpolator for the movement track
+     * @param interpolatorFactor the interpolator value,
+     *                           if the value is negative, it will be ignored
+     */
+    public final void setInterpolatorFactor(float interpolatorFactor) {
+        mRenderer.setInterpolatorFactor(interpolatorFactor);
+        resetState();
+    }
+
+    /**
+     * draw the shapes by the pre-rendered frames shared with the other loadings
+     * @param enabled true to enable the frame cache
+     * @see ShapeLoadingRenderer#setFrameCacheEnabled(boolean)
+     */
+    public final void setFrameCacheEnabled(boolean enabled) {
+        mRenderer.setFrameCacheEnabled(enabled);
+        super.invalidateSelf();
+    }
+
+    /**
+     * draw the polygons by the vertices instead of the paths
+     * @param enabled true to enable the vertex draw
+     * @see ShapeLoadingRenderer#setVertexDrawEnabled(boolean)
+     */
+    public final void setVertexDrawEnabled(boolean enabled) {
+        mRenderer.setVertexDrawEnabled(enabled);
+        super.invalidateSelf();
+    }
+
+    private void resetState() {
+        super.getAnimationController().resetFrameIndex();
+        mRenderer.setFrameIndex(0L);
+        super.invalidateSelf();
+    }
+}
@@ -0,0 +1,584 @@
+package com.shinezhang.android.loading.shape;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+import android.view.animation.AccelerateInterpolator;
+import android.view.animation.DecelerateInterpolator;
+
+import com.shinezhang.android.loading.AbstractLoadingRenderer;
+import com.shinezhang.android.loading.core.ShapeSequence;
+import com.shinezhang.android.loading.core.ShapeTimeline;
+
+/**
+ * Created by ShineZhang on 2017/3/9.
+ *
+ * <p>the renderer of the shape loading, the shape is throw up and fall down above the shadow,
+ * it changes after each bounce.
+ * <br/>the shapes and the step ratios are built lazily in the first drawing or by {@link #prepare()},
+ * so the config can be changed many times during the inflation without building them.
+ *
+ * @see ShapeLoadingView
+ * @see ShapeLoadingDrawable
+ */
+public final class ShapeLoadingRenderer extends AbstractLoadingRenderer {
+
+    private static final int DEFAULT_DIMEN_DP_RADIUS                = 25;
+    private static final int DEFAULT_DIMEN_DP_SHADOW_HEIGHT         = 2;
+    private static final int DEFAULT_DIMEN_DP_SHADOW_TOP_SPACE      = 5;
+
+    /* package */ static final int DEFAULT_TIMES_OF_RADIUS          = 8;
+
+    private static final int DEFAULT_SHAPE_COLOR                    = 0xffff5400;
+    private static final int DEFAULT_SHADOW_COLOR                   = 0xffa9a9a9;
+
+    /* package */ static final long DEFAULT_INVALID_DELAY_TIME      = 30L;
+
+    /* package */ static final float DEFAULT_MAX_ALLOW_ROTATE_DEGREE    = 360f;
+    /* package */ static final int DEFAULT_MAX_ALLOW_POLYGON_SIDE_COUNT = 5;
+
+    /* package */ static final float DEFAULT_INTERPOLATOR_FACTOR    = 1.2f;
+
+    private final int mDefaultRadius;
+    private final int mDefaultShadowHeight;
+    private final int mDefaultShadowTopSpace;
+
+    private int mShadowHeight;
+    private int mShadowTopSpace;
+    private final RectF mRectFShadow                                = new RectF();
+
+    private final Paint mPaintShape;
+    private final Paint mPaintShadow;
+    private int mShapeColor;
+    private int mShadowColor;
+    private int mAlpha                                              = 0xff;
+
+    private float mInterpolatorFactor;
+    /**
+     * the throw ratio of each step in a bounce, 0 is on the ground and 1 is at the top
+     */
+    private final float[] mArrayStepRatio                          = new float[ShapeSequence.STEP_COUNT_PER_BOUNCE];
+    /**
+     * the step ratios are not computed for current interpolator factor
+     */
+    private boolean mIsStepRatiosDirty;
+
+    private int mMaxAllowPolygonSideCount;
+    private float mMaxAllowRotateDegree;
+
+    /**
+     * the shapes of current config, it is null until the first drawing or {@link #prepare()}
+     */
+    private AbstractShapeDraw[] mArrayShapeDraw;
+    /**
+     * the shape index of each bounce in a whole period, the shapes run by odd index first and then even index
+     */
+    private ShapeSequence mShapeSequence;
+    private int mCurDrawIndex;
+    private int mCurStepIndex;
+
+    /**
+     * the baked positions of current config, it is null if the config is changed
+     */
+    private ShapeTimeline mTimeline;
+
+    private boolean mIsFrameCacheEnabled;
+    private boolean mIsVertexDrawEnabled;
+    private ShapeFrameAtlas mFrameAtlas;
+    /**
+     * the frames of current config are larger than the budget, it is not acquired again until the config is changed
+     */
+    private boolean mIsFrameAtlasUnavailable;
+
+    public ShapeLoadingRenderer(Context context) {
+        DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
+        mDefaultRadius = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
+                DEFAULT_DIMEN_DP_RADIUS, displayMetrics);
+
+        mDefaultShadowHeight = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
+                DEFAULT_DIMEN_DP_SHADOW_HEIGHT, displayMetrics);
+
+        mDefaultShadowTopSpace = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
+                DEFAULT_DIMEN_DP_SHADOW_TOP_SPACE, displayMetrics);
+
+        mPaintShape = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mPaintShadow = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+        setShapeColor(DEFAULT_SHAPE_COLOR);
+        setShadowColor(DEFAULT_SHADOW_COLOR);
+        setShadowHeight(mDefaultShadowHeight);
+        setShadowTopSpace(mDefaultShadowTopSpace);
+        setInterpolatorFactor(DEFAULT_INTERPOLATOR_FACTOR);
+        setPolygonSideCountAndRotateDegree(DEFAULT_MAX_ALLOW_POLYGON_SIDE_COUNT, DEFAULT_MAX_ALLOW_ROTATE_DEGREE);
+    }
+
+    /**
+     * get the default shape radius, it is used when the size is not limited
+     * @return the radius in pixel
+     */
+    public int getDefaultRadius() {
+        return mDefaultRadius;
+    }
+
+    /**
+     * get the default shadow height
+     * @return the height in pixel
+     */
+    public int getDefaultShadowHeight() {
+        return mDefaultShadowHeight;
+    }
+
+    /**
+     * get the default space between the bottom shadow and shape
+     * @return the space in pixel
+     */
+    public int getDefaultShadowTopSpace() {
+        return mDefaultShadowTopSpace;
+    }
+
+    /**
+     * set the shape color
+     * @param color the color of shape
+     */
+    public void setShapeColor(int color) {
+        mShapeColor = color;
+        setPaintColor(mPaintShape, color, mAlpha);
+    }
+
+    /**
+     * get the shape color
+     * @return the color of shape
+     */
+    public int getShapeColor() {
+        return mShapeColor;
+    }
+
+    /**
+     * set the bottom shadow color
+     * @param color the color of shadow
+     */
+    public void setShadowColor(int color) {
+        mShadowColor = color;
+        setPaintColor(mPaintShadow, color, mAlpha);
+    }
+
+    /**
+     * get the bottom shadow color
+     * @return the color of shadow
+     */
+    public int getShadowColor() {
+        return mShadowColor;
+    }
+
+    /**
+     * set the bottom shadow height(px value)
+     * @param height the height of shadow
+     */
+    public void setShadowHeight(int height) {
+        if (height <= 0) {
+            //should be a positive number
+            return;
+        }
+
+        mShadowHeight = height;
+        mTimeline = null;
+    }
+
+    /**
+     * get the bottom shadow height(px value)
+     * @return the height of shadow
+     */
+    public int getShadowHeight() {
+        return mShadowHeight;
+    }
+
+    /**
+     * set the extra space between the bottom shadow and shape
+     * @param space the height of the space
+     */
+    public void setShadowTopSpace(int space) {
+        if (space < 0) {
+            //should be a positive number
+            return;
+        }
+
+        mShadowTopSpace = space;
+        mTimeline = null;
+    }
+
+    /**
+     * get the extra space between the bottom shadow and shape
+     * @return the height of the space
+     */
+    public int getShadowTopSpace() {
+        return mShadowTopSpace;
+    }
+
+    /**
+     * get the max allow polygon side count
+     * @return the side count
+     */
+    public int getMaxAllowPolygonSideCount() {
+        return mMaxAllowPolygonSideCount;
+    }
+
+    /**
+     * get the max allow rotate degree during throw up or fall down
+     * @return the rotate degree
+     */
+    public float getMaxAllowRotateDegree() {
+        return mMaxAllowRotateDegree;
+    }
+
+    /**
+     * init the shape array by polygon side count and rotate degree, the frame index is reset to 0
+     * @param maxAllowPolygonSideCount the value should be 0, 3, 4, 5, 6...
+     *                                 if the value is negative, do nothing;
+     *                                 if the value is 2, it will only exist a circle
+     *
+     * @param maxAllowRotateDegree the max allow rotate degree during throw up or fall down
+     */
+    public void setPolygonSideCountAndRotateDegree(int maxAllowPolygonSideCount, float maxAllowRotateDegree) {
+        if (maxAllowPolygonSideCount < 0) {
+            return;
+        }
+
+        if (mShapeSequence != null
+                && mMaxAllowPolygonSideCount == maxAllowPolygonSideCount
+                && Float.compare(mMaxAllowRotateDegree, maxAllowRotateDegree) == 0) {
+            //the shapes are not changed
+            super.setFrameIndex(0L);
+            return;
+        }
+
+        mMaxAllowPolygonSideCount = maxAllowPolygonSideCount;
+        mMaxAllowRotateDegree = maxAllowRotateDegree;
+        releaseFrameAtlas();
+
+        //the shapes are built when they are drawn, only the count is needed by the sequence
+        mArrayShapeDraw = null;
+        int shapeCount = (maxAllowPolygonSideCount <= 2) ? 1 : (maxAllowPolygonSideCount - 2) * 2 + 1;
+        mShapeSequence = new ShapeSequence(shapeCount);
+        super.setFrameIndex(0L);
+    }
+
+    /**
+     * get the shapes of current config, they are built if necessary
+     * @return the shapes
+     */
+    private AbstractShapeDraw[] obtainShapeDraws() {
+        if (mArrayShapeDraw != null) {
+            return mArrayShapeDraw;
+        }
+
+        int maxAllowPolygonSideCount = mMaxAllowPolygonSideCount;
+        float maxAllowRotateDegree = mMaxAllowRotateDegree;
+        AbstractShapeDraw[] arrayShapeDraw;
+        if (maxAllowPolygonSideCount <= 2) {
+            arrayShapeDraw = new AbstractShapeDraw[1];
+            arrayShapeDraw[0] = new CircleDraw();
+        } else {
+            int size = (maxAllowPolygonSideCount - 2) * 2 + 1;
+            arrayShapeDraw = new AbstractShapeDraw[size];
+            arrayShapeDraw[0] = new CircleDraw();
+
+            for (int i = 3; i <= maxAllowPolygonSideCount; i++) {
+                if ((i & 0x1) == 0x1) {
+                    arrayShapeDraw[(i - 3) * 2 + 1] = new PolygonDraw(i, maxAllowRotateDegree);
+                    arrayShapeDraw[(i - 3) * 2 + 2] = new PolygonDraw(i, maxAllowRotateDegree * -1f);
+                } else {
+                    arrayShapeDraw[(i - 3) * 2 + 1] = new PolygonDraw(i, maxAllowRotateDegree * -1f);
+                    arrayShapeDraw[(i - 3) * 2 + 2] = new PolygonDraw(i, maxAllowRotateDegree);
+                }
+            }
+        }
+
+        for (AbstractShapeDraw shapeDraw : arrayShapeDraw) {
+            shapeDraw.setVertexDrawEnabled(mIsVertexDrawEnabled);
+        }
+
+        mArrayShapeDraw = arrayShapeDraw;
+        return arrayShapeDraw;
+    }
+
+    /**
+     * set the interpolator for the movement track, the frame index is reset to 0
+     * @param interpolatorFactor the interpolator value,
+     *                           if the value is negative, it will be ignored
+     *
+     * @see AccelerateInterpolator#AccelerateInterpolator(float)
+     * @see DecelerateInterpolator#DecelerateInterpolator(float)
+     */
+    public void setInterpolatorFactor(float interpolatorFactor) {
+        if (interpolatorFactor <= 0f) {
+            return;
+        }
+
+        if (Float.compare(mInterpolatorFactor, interpolatorFactor) == 0) {
+            //the track is not changed
+            super.setFrameIndex(0L);
+            return;
+        }
+
+        mInterpolatorFactor = interpolatorFactor;
+        mIsStepRatiosDirty = true;
+
+        mTimeline = null;
+        releaseFrameAtlas();
+        super.setFrameIndex(0L);
+    }
+
+    /**
+     * get the throw ratio of each step, they are computed if necessary
+     * @return the step ratios
+     */
+    private float[] obtainStepRatios() {
+        if (mIsStepRatiosDirty) {
+            mIsStepRatiosDirty = false;
+            ShapeSequence.computeStepRatios(mInterpolatorFactor, mArrayStepRatio);
+        }
+        return mArrayStepRatio;
+    }
+
+    /**
+     * get the interpolator factor of the movement track
+     * @return the interpolator value
+     */
+    public float getInterpolatorFactor() {
+        return mInterpolatorFactor;
+    }
+
+    /**
+     * draw the shapes by the pre-rendered frames, the frames are shared with the other renderers
+     * with the same config by {@link ShapeFrameCache}, it is disabled by default.
+     * <br/>it saves the cost of the path drawing in each frame, with the memory of the frames,
+     * the shapes are drawn directly when the frames are larger than the memory budget or the max texture size
+     * @param enabled true to enable the frame cache
+     */
+    public void setFrameCacheEnabled(boolean enabled) {
+        mIsFrameCacheEnabled = enabled;
+        if (!enabled) {
+            releaseFrameAtlas();
+        }
+    }
+
+    /**
+     * whether the shapes are drawn by the pre-rendered frames
+     * @return true if the frame cache is enabled
+     */
+    public boolean isFrameCacheEnabled() {
+        return mIsFrameCacheEnabled;
+    }
+
+    /**
+     * draw the polygons by the triangle fans of the vertices instead of the paths, it is disabled by default.
+     * <br/>it saves the path rasterizing and the mask textures of the hardware canvas,
+     * but the edges are not anti aliased. it works on the software canvas and the hardware canvas since api 29,
+     * the paths are drawn on the others. the circle is always drawn directly.
+     * @param enabled true to enable the vertex draw
+     */
+    public void setVertexDrawEnabled(boolean enabled) {
+        mIsVertexDrawEnabled = enabled;
+        if (mArrayShapeDraw == null) {
+            return;
+        }
+
+        for (AbstractShapeDraw shapeDraw : mArrayShapeDraw) {
+            shapeDraw.setVertexDrawEnabled(enabled);
+        }
+    }
+
+    /**
+     * whether the polygons are drawn by the vertices
+     * @return true if the vertex draw is enabled
+     */
+    public boolean isVertexDrawEnabled() {
+        return mIsVertexDrawEnabled;
+    }
+
+    /**
+     * build the shapes and the track of current config, and the geometry or the frames of current bounds
+     * if the bounds is set, it can be called in background thread when the renderer is not drawn
+     */
+    @Override
+    public void prepare() {
+        obtainStepRatios();
+        AbstractShapeDraw[] arrayShapeDraw = obtainShapeDraws();
+        ShapeTimeline timeline = obtainTimeline();
+        if (timeline == null || !timeline.hasShape()) {
+            //the geometry depends on the bounds
+            return;
+        }
+
+        int radius = timeline.getRadius();
+        ShapeFrameAtlas frameAtlas = obtainFrameAtlas(radius);
+        if (frameAtlas != null) {
+            frameAtlas.renderAll();
+            return;
+        }
+
+        for (AbstractShapeDraw shapeDraw : arrayShapeDraw) {
+            shapeDraw.setRadius(radius);
+            shapeDraw.prepare();
+        }
+    }
+
+    @Override
+    public void releaseCaches() {
+        releaseFrameAtlas();
+    }
+
+    /**
+     * get the atlas of current config, the atlas is acquired lazily
+     * @param radius the shape radius
+     * @return the atlas, null if the frame cache is disabled or not available
+     */
+    private ShapeFrameAtlas obtainFrameAtlas(int radius) {
+        if (!mIsFrameCacheEnabled) {
+            return null;
+        }
+
+        if (mFrameAtlas == null && !mIsFrameAtlasUnavailable) {
+            int maxSideCount = (mMaxAllowPolygonSideCount <= 2) ? 0 : mMaxAllowPolygonSideCount;
+            ShapeFrameCache.Key key = new ShapeFrameCache.Key(radius, maxSideCount, mMaxAllowRotateDegree, mInterpolatorFactor);
+            mFrameAtlas = ShapeFrameCache.getInstance().acquire(key, obtainStepRatios(), this);
+            mIsFrameAtlasUnavailable = (mFrameAtlas == null);
+        }
+        return mFrameAtlas;
+    }
+
+    private void releaseFrameAtlas() {
+        mIsFrameAtlasUnavailable = false;
+        if (mFrameAtlas != null) {
+            ShapeFrameCache.getInstance().release(mFrameAtlas, this);
+            mFrameAtlas = null;
+        }
+    }
+
+    @Override
+    protected void onBoundsChanged(Rect bounds) {
+        mTimeline = null;
+        mIsFrameAtlasUnavailable = false;
+        if (mFrameAtlas != null && mFrameAtlas.getKey().mRadius != bounds.width() / 2) {
+            releaseFrameAtlas();
+        }
+    }
+
+    /**
+     * compute the draw index and the step by the frame index
+     * @param frameIndex the frame index of the animation
+     */
+    @Override
+    protected void onFrameIndexChanged(long frameIndex) {
+        if (mShapeSequence == null) {
+            //the shapes are not ready
+            return;
+        }
+
+        mCurDrawIndex = mShapeSequence.getDrawIndex(frameIndex);
+        mCurStepIndex = ShapeSequence.getStepIndex(frameIndex);
+    }
+
+    /**
+     * get the baked positions of current config, the timeline is baked when the config is changed
+     * @return the timeline, null if the bounds is empty
+     */
+    private ShapeTimeline obtainTimeline() {
+        if (mTimeline == null) {
+            Rect bounds = super.getBounds();
+            mTimeline = ShapeTimeline.obtain(bounds.width(), bounds.height(), mShadowHeight, mShadowTopSpace,
+                    mInterpolatorFactor, obtainStepRatios());
+        }
+        return mTimeline;
+    }
+
+    @Override
+    public void getFrameDirtyBounds(Rect outRect) {
+        ShapeTimeline timeline = obtainTimeline();
+        if (timeline == null) {
+            outRect.setEmpty();
+            return;
+        }
+
+        Rect bounds = super.getBounds();
+        int left = bounds.left;
+        int top = bounds.top;
+        int stepIndex = mCurStepIndex;
+        outRect.set(left + (int) timeline.getShadowLeft(stepIndex) - 1, top + (int) timeline.getShadowTop(),
+                left + (int) Math.ceil(timeline.getShadowRight(stepIndex)) + 1, bounds.bottom);
+
+        if (timeline.hasShape()) {
+            //the shape in any rotation is in the square of the radius, 1 pixel more for the anti alias
+            int shapeTop = top + (int) timeline.getShapeTop(stepIndex);
+            int shapeSize = timeline.getRadius() * 2;
+            outRect.union(left - 1, shapeTop - 1, left + shapeSize + 1, shapeTop + shapeSize + 2);
+        }
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        ShapeTimeline timeline = obtainTimeline();
+        if (timeline == null) {
+            return;
+        }
+
+        Rect bounds = super.getBounds();
+        int left = bounds.left;
+        int top = bounds.top;
+        int stepIndex = mCurStepIndex;
+
+        mRectFShadow.set(left + timeline.getShadowLeft(stepIndex), top + timeline.getShadowTop(),
+                left + timeline.getShadowRight(stepIndex), bounds.bottom);
+        canvas.drawRect(mRectFShadow, mPaintShadow);
+
+        if (!timeline.hasShape()) {
+            return;
+        }
+
+        float ratio = timeline.getRatio(stepIndex);
+        float translateDy = top + timeline.getShapeTop(stepIndex);
+        int radius = timeline.getRadius();
+
+        AbstractShapeDraw shapeDraw = obtainShapeDraws()[mCurDrawIndex];
+        ShapeFrameAtlas frameAtlas = obtainFrameAtlas(radius);
+        if (frameAtlas != null) {
+            frameAtlas.draw(canvas, shapeDraw, stepIndex, left, translateDy, mPaintShape);
+            return;
+        }
+
+        shapeDraw.setRadius(radius);
+
+        final int saveCount = canvas.save();
+        canvas.translate(left, translateDy);
+        shapeDraw.draw(canvas, mPaintShape, ratio);
+        canvas.restoreToCount(saveCount);
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mAlpha = alpha;
+        setPaintColor(mPaintShape, mShapeColor, alpha);
+        setPaintColor(mPaintShadow, mShadowColor, alpha);
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mPaintShape.setColorFilter(colorFilter);
+        mPaintShadow.setColorFilter(colorFilter);
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return mDefaultRadius * 2;
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return mDefaultRadius * DEFAULT_TIMES_OF_RADIUS + mShadowHeight + mShadowTopSpace;
+    }
+}
@@ -4,60 +4,24 @@ import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
-import android.graphics.Paint;
-import android.graphics.RectF;
 import android.util.AttributeSet;
-import android.util.DisplayMetrics;
-import android.util.TypedValue;
 import android.view.View;
 import android.view.animation.AccelerateInterpolator;
 import android.view.animation.DecelerateInterpolator;
 
 import com.shinezhang.android.R;
+import com.shinezhang.android.loading.AbstractLoadingView;
+import com.shinezhang.android.loading.LoadingAnimationPolicy;
+import com.shinezhang.android.loading.LoadingFrameClock;
+import com.shinezhang.android.loading.LoadingTrace;
 
 /**
  * Created by ShineZhang on 2017/2/20.
  */
 
-public class ShapeLoadingView extends View {
+public class ShapeLoadingView extends AbstractLoadingView {
 
-    private static final int DEFAULT_DIMEN_DP_RADIUS                = 25;
-    private static final int DEFAULT_DIMEN_DP_SHADOW_HEIGHT         = 2;
-    private static final int DEFAULT_DIMEN_DP_SHADOW_TOP_SPACE      = 5;
-
-    private static final int DEFAULT_TIMES_OF_RADIUS                = 8;
-
-    private static final int DEFAULT_SHAPE_COLOR                    = 0xffff5400;
-    private static final int DEFAULT_SHADOW_COLOR                   = 0xffa9a9a9;
-
-    private static final long DEFAULT_INVALID_DELAY_TIME            = 30L;
-
-    private static final float DEFAULT_MAX_ALLOW_ROTATE_DEGREE      = 360f;
-    private static final int DEFAULT_MAX_ALLOW_POLYGON_SIDE_COUNT   = 5;
-
-    private static final float DEFAULT_INTERPOLATOR_FACTOR          = 1.2f;
-
-    private int mDefaultRadius;
-    private int mDefaultShadowHeight;
-    private int mDefaultShadowTopSpace;
-
-    private int mShadowHeight;
-    private int mShadowTopSpace;
-    private final RectF mRectFShadow                                = new RectF();
-
-    private Paint mPaintShape;
-    private Paint mPaintShadow;
-
-    private AccelerateInterpolator mAccelerateInterpolator;
-    private DecelerateInterpolator mDecelerateInterpolator;
-
-    private int mMaxAllowPolygonSideCount;
-    private float mMaxAllowRotateDegree;
-
-    private AbstractShapeDraw[] mArrayShapeDraw;
-    private int mCurDrawIndex;
-    private int mCurStep;
-    private boolean mRunByOddIndex;
+    private ShapeLoadingRenderer mRenderer;
     private long mInvalidDelayTime;
 
     public ShapeLoadingView(Context context) {
@@ -82,18 +46,9 @@ public class ShapeLoadingView extends View {
     }
 
     private void init(Context context, AttributeSet attrs) {
-        DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
-        mDefaultRadius = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
-                DEFAULT_DIMEN_DP_RADIUS, displayMetrics);
-
-        mDefaultShadowHeight = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
-                DEFAULT_DIMEN_DP_SHADOW_HEIGHT, displayMetrics);
-
-        mDefaultShadowTopSpace = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
-                DEFAULT_DIMEN_DP_SHADOW_TOP_SPACE, displayMetrics);
-
-        mPaintShape = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mPaintShadow = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mRenderer = new ShapeLoadingRenderer(context);
+        int defaultShadowHeight = mRenderer.getDefaultShadowHeight();
+        int defaultShadowTopSpace = mRenderer.getDefaultShadowTopSpace();
 
         float maxAllowRotateDegree;
         int maxAllowPolygonSideCount;
@@ -103,47 +58,64 @@ public class ShapeLoadingView extends View {
         int shadowHeight;
         int shadowTopSpace;
         int invalidDelayTime;
+        int targetFps;
+        boolean frameCacheEnabled;
+        boolean vertexDrawEnabled;
+        boolean lazyInit;
 
         if (attrs == null) {
-            maxAllowRotateDegree = DEFAULT_MAX_ALLOW_ROTATE_DEGREE;
-            maxAllowPolygonSideCount = DEFAULT_MAX_ALLOW_POLYGON_SIDE_COUNT;
-            interpolatorFactor = DEFAULT_INTERPOLATOR_FACTOR;
-            shapeColor = DEFAULT_SHAPE_COLOR;
-            shadowColor = DEFAULT_SHADOW_COLOR;
-            shadowHeight = mDefaultShadowHeight;
-            shadowTopSpace = mDefaultShadowTopSpace;
-            invalidDelayTime = (int) DEFAULT_INVALID_DELAY_TIME;
+            maxAllowRotateDegree = ShapeLoadingRenderer.DEFAULT_MAX_ALLOW_ROTATE_DEGREE;
+            maxAllowPolygonSideCount = ShapeLoadingRenderer.DEFAULT_MAX_ALLOW_POLYGON_SIDE_COUNT;
+            interpolatorFactor = ShapeLoadingRenderer.DEFAULT_INTERPOLATOR_FACTOR;
+            shapeColor = mRenderer.getShapeColor();
+            shadowColor = mRenderer.getShadowColor();
+            shadowHeight = defaultShadowHeight;
+            shadowTopSpace = defaultShadowTopSpace;
+            invalidDelayTime = (int) ShapeLoadingRenderer.DEFAULT_INVALID_DELAY_TIME;
+            targetFps = LoadingAnimationPolicy.TARGET_FPS_UNLIMITED;
+            frameCacheEnabled = false;
+            vertexDrawEnabled = false;
+            lazyInit = false;
         } else {
             TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.ShapeLoadingView);
             try {
-                maxAllowRotateDegree = a.getFloat(R.styleable.ShapeLoadingView_max_shape_rotate_degree, DEFAULT_MAX_ALLOW_ROTATE_DEGREE);
+                maxAllowRotateDegree = a.getFloat(R.styleable.ShapeLoadingView_max_shape_rotate_degree, ShapeLoadingRenderer.DEFAULT_MAX_ALLOW_ROTATE_DEGREE);
 
-                maxAllowPolygonSideCount = a.getInt(R.styleable.ShapeLoadingView_max_allow_polygon_side_count, DEFAULT_MAX_ALLOW_POLYGON_SIDE_COUNT);
+                maxAllowPolygonSideCount = a.getInt(R.styleable.ShapeLoadingView_max_allow_polygon_side_count, ShapeLoadingRenderer.DEFAULT_MAX_ALLOW_POLYGON_SIDE_COUNT);
                 if (maxAllowPolygonSideCount < 0) {
-                    maxAllowPolygonSideCount = DEFAULT_MAX_ALLOW_POLYGON_SIDE_COUNT;
+                    maxAllowPolygonSideCount = ShapeLoadingRenderer.DEFAULT_MAX_ALLOW_POLYGON_SIDE_COUNT;
                 }
 
-                interpolatorFactor = a.getFloat(R.styleable.ShapeLoadingView_interpolator_factor, DEFAULT_INTERPOLATOR_FACTOR);
+                interpolatorFactor = a.getFloat(R.styleable.ShapeLoadingView_interpolator_factor, ShapeLoadingRenderer.DEFAULT_INTERPOLATOR_FACTOR);
                 if (interpolatorFactor <= 0f) {
-                    interpolatorFactor = DEFAULT_INTERPOLATOR_FACTOR;
+                    interpolatorFactor = ShapeLoadingRenderer.DEFAULT_INTERPOLATOR_FACTOR;
                 }
 
-                shapeColor = a.getColor(R.styleable.ShapeLoadingView_shape_color, DEFAULT_SHAPE_COLOR);
-                shadowColor = a.getColor(R.styleable.ShapeLoadingView_shadow_color, DEFAULT_SHADOW_COLOR);
-                shadowHeight = a.getDimensionPixelOffset(R.styleable.ShapeLoadingView_shadow_height, mDefaultShadowHeight);
+                shapeColor = a.getColor(R.styleable.ShapeLoadingView_shape_color, mRenderer.getShapeColor());
+                shadowColor = a.getColor(R.styleable.ShapeLoadingView_shadow_color, mRenderer.getShadowColor());
+                shadowHeight = a.getDimensionPixelOffset(R.styleable.ShapeLoadingView_shadow_height, defaultShadowHeight);
                 if (shadowHeight <= 0) {
-                    shadowHeight = mDefaultShadowHeight;
+                    shadowHeight = defaultShadowHeight;
                 }
 
-                shadowTopSpace = a.getDimensionPixelOffset(R.styleable.ShapeLoadingView_shadow_top_space, mDefaultShadowTopSpace);
+                shadowTopSpace = a.getDimensionPixelOffset(R.styleable.ShapeLoadingView_shadow_top_space, defaultShadowTopSpace);
                 if (shadowTopSpace < 0) {
-                    shadowTopSpace = mDefaultShadowTopSpace;
+                    shadowTopSpace = defaultShadowTopSpace;
                 }
 
-                invalidDelayTime = a.getInt(R.styleable.ShapeLoadingView_shape_loading_invalid_delay_time, (int) DEFAULT_INVALID_DELAY_TIME);
+                invalidDelayTime = a.getInt(R.styleable.ShapeLoadingView_shape_loading_invalid_delay_time, (int) ShapeLoadingRenderer.DEFAULT_INVALID_DELAY_TIME);
                 if (invalidDelayTime < 0) {
-                    invalidDelayTime = (int) DEFAULT_INVALID_DELAY_TIME;
+                    invalidDelayTime = (int) ShapeLoadingRenderer.DEFAULT_INVALID_DELAY_TIME;
                 }
+
+                targetFps = a.getInt(R.styleable.ShapeLoadingView_shape_loading_target_fps, LoadingAnimationPolicy.TARGET_FPS_UNLIMITED);
+                if (targetFps <= 0) {
+                    targetFps = LoadingAnimationPolicy.TARGET_FPS_UNLIMITED;
+                }
+
+                frameCacheEnabled = a.getBoolean(R.styleable.ShapeLoadingView_shape_frame_cache, false);
+                vertexDrawEnabled = a.getBoolean(R.styleable.ShapeLoadingView_shape_vertex_draw, false);
+                lazyInit = a.getBoolean(R.styleable.ShapeLoadingView_shape_lazy_init, false);
             } finally {
                 a.recycle();
             }
@@ -155,13 +127,30 @@ public class ShapeLoadingView extends View {
         setShadowHeight(shadowHeight);
         setShadowTopSpace(shadowTopSpace);
         setInvalidDelayTime(invalidDelayTime);
+        super.setTargetFps(targetFps);
         setInterpolatorFactor(interpolatorFactor);
+        setFrameCacheEnabled(frameCacheEnabled);
+        setVertexDrawEnabled(vertexDrawEnabled);
 
         setPolygonSideCountAndRotateDegree(maxAllowPolygonSideCount, maxAllowRotateDegree);
+
+        if (lazyInit) {
+            //the shapes and the track are built on the first attach
+            super.deferPrepare();
+        } else {
+            mRenderer.prepare();
+        }
+    }
+
+    @Override
+    protected void onPrepare() {
+        super.onPrepare();
+        mRenderer.prepare();
     }
 
     /**
-     * set the delay time after {@link View#onDraw(Canvas)} called
+     * set the delay time after {@link View#onDraw(Canvas)} called, it is the time of each animation step,
+     * the value smaller than {@link LoadingFrameClock#MIN_FRAME_INTERVAL_MILLIS} is treated as one frame
      * @param delayTimeMills the delay time, if the value is negative, the value will be ignored
      */
     public final void setInvalidDelayTime(long delayTimeMills) {
@@ -170,6 +159,7 @@ public class ShapeLoadingView extends View {
             return;
         }
         mInvalidDelayTime = delayTimeMills;
+        super.getAnimationController().setFrameDuration(delayTimeMills);
     }
 
     /**
@@ -177,7 +167,8 @@ public class ShapeLoadingView extends View {
      * @param color the color of shape
      */
     public void setShapeColor(int color) {
-        mPaintShape.setColor(color);
+        mRenderer.setShapeColor(color);
+        super.invalidate();
     }
 
     /**
@@ -185,7 +176,8 @@ public class ShapeLoadingView extends View {
      * @param color the color of shadow
      */
     public final void setShadowColor(int color) {
-        mPaintShadow.setColor(color);
+        mRenderer.setShadowColor(color);
+        super.invalidate();
     }
 
     /**
@@ -198,7 +190,8 @@ public class ShapeLoadingView extends View {
             return;
         }
 
-        mShadowHeight = height;
+        mRenderer.setShadowHeight(height);
+        super.requestLayout();
     }
 
     /**
@@ -211,7 +204,8 @@ public class ShapeLoadingView extends View {
             return;
         }
 
-        mShadowTopSpace = space;
+        mRenderer.setShadowTopSpace(space);
+        super.requestLayout();
     }
 
     /**
@@ -221,7 +215,7 @@ public class ShapeLoadingView extends View {
      *                                 if the value is 2, it will only exist a circle
      */
     public final void setMaxAllowPolygonSideCount(int maxAllowPolygonSideCount) {
-        setPolygonSideCountAndRotateDegree(maxAllowPolygonSideCount, mMaxAllowRotateDegree);
+        setPolygonSideCountAndRotateDegree(maxAllowPolygonSideCount, mRenderer.getMaxAllowRotateDegree());
     }
 
     /**
@@ -229,7 +223,7 @@ public class ShapeLoadingView extends View {
      * @param maxAllowRotateDegree the max allow rotate degree during throw up or fall down
      */
     public final void setMaxAllowRotateDegree(float maxAllowRotateDegree) {
-        setPolygonSideCountAndRotateDegree(mMaxAllowPolygonSideCount, maxAllowRotateDegree);
+        setPolygonSideCountAndRotateDegree(mRenderer.getMaxAllowPolygonSideCount(), maxAllowRotateDegree);
     }
 
     /**
@@ -245,28 +239,7 @@ public class ShapeLoadingView extends View {
             return;
         }
 
-        mMaxAllowPolygonSideCount = maxAllowPolygonSideCount;
-        mMaxAllowRotateDegree = maxAllowRotateDegree;
-
-        if (maxAllowPolygonSideCount <= 2) {
-            mArrayShapeDraw = new AbstractShapeDraw[1];
-            mArrayShapeDraw[0] = new CircleDraw();
-        } else {
-            int size = (maxAllowPolygonSideCount - 2) * 2 + 1;
-            mArrayShapeDraw = new AbstractShapeDraw[size];
-            mArrayShapeDraw[0] = new CircleDraw();
-
-            for (int i = 3; i <= maxAllowPolygonSideCount; i++) {
-                if ((i & 0x1) == 0x1) {
-                    mArrayShapeDraw[(i - 3) * 2 + 1] = new PolygonDraw(i, maxAllowRotateDegree);
-                    mArrayShapeDraw[(i - 3) * 2 + 2] = new PolygonDraw(i, maxAllowRotateDegree * -1f);
-                } else {
-                    mArrayShapeDraw[(i - 3) * 2 + 1] = new PolygonDraw(i, maxAllowRotateDegree * -1f);
-                    mArrayShapeDraw[(i - 3) * 2 + 2] = new PolygonDraw(i, maxAllowRotateDegree);
-                }
-            }
-        }
-
+        mRenderer.setPolygonSideCountAndRotateDegree(maxAllowPolygonSideCount, maxAllowRotateDegree);
         resetState();
     }
 
@@ -282,20 +255,53 @@ public class ShapeLoadingView extends View {
         if (interpolatorFactor <= 0f) {
             return;
         }
-        mAccelerateInterpolator = new AccelerateInterpolator(interpolatorFactor);
-        mDecelerateInterpolator = new DecelerateInterpolator(interpolatorFactor);
+        mRenderer.setInterpolatorFactor(interpolatorFactor);
         resetState();
     }
 
+    /**
+     * draw the shapes by the pre-rendered frames shared with the other loadings
+     * @param enabled true to enable the frame cache
+     * @see ShapeLoadingRenderer#setFrameCacheEnabled(boolean)
+     */
+    public final void setFrameCacheEnabled(boolean enabled) {
+        mRenderer.setFrameCacheEnabled(enabled);
+        super.invalidate();
+    }
+
+    /**
+     * draw the polygons by the vertices instead of the paths
+     * @param enabled true to enable the vertex draw
+     * @see ShapeLoadingRenderer#setVertexDrawEnabled(boolean)
+     */
+    public final void setVertexDrawEnabled(boolean enabled) {
+        mRenderer.setVertexDrawEnabled(enabled);
+        super.invalidate();
+    }
+
     private void resetState() {
-        mCurDrawIndex = 0;
-        mCurStep = 0;
-        mRunByOddIndex = true;
+        super.getAnimationController().resetFrameIndex();
+        mRenderer.setFrameIndex(0L);
+        super.invalidate();
+    }
+
+    @Override
+    protected void onAnimationFrame(long frameIndex) {
+        //only the shape and the shadow are redrawn, the view is much taller than them
+        super.invalidateRendererFrame(mRenderer, frameIndex);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mRenderer.releaseCaches();
     }
 
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         super.onLayout(changed, left, top, right, bottom);
+        mRenderer.setBounds(super.getPaddingLeft(), super.getPaddingTop(),
+                right - left - super.getPaddingRight(), bottom - top - super.getPaddingBottom());
         resetState();
     }
 
@@ -319,21 +325,21 @@ public class ShapeLoadingView extends View {
             if (heightSpecMode == MeasureSpec.AT_MOST) {
                 //width is wrap_content, height is wrap_content
 
-                int measuredWidth = horizontalPadding + mDefaultRadius * 2;
+                int measuredWidth = horizontalPadding + mRenderer.getDefaultRadius() * 2;
                 measuredWidth = Math.min(measuredWidth, widthSpecSize);
 
-                int measuredHeight = verticalPadding + mDefaultRadius * DEFAULT_TIMES_OF_RADIUS
-                        + mShadowHeight + mShadowTopSpace;
+                int measuredHeight = verticalPadding + mRenderer.getDefaultRadius() * ShapeLoadingRenderer.DEFAULT_TIMES_OF_RADIUS
+                        + mRenderer.getShadowHeight() + mRenderer.getShadowTopSpace();
                 measuredHeight = Math.min(measuredHeight, heightSpecSize);
 
                 super.setMeasuredDimension(measuredWidth, measuredHeight);
 
             } else {
                 //width is wrap_content, height is exact
-                int availableHeight = heightSpecSize - verticalPadding - mShadowHeight - mShadowTopSpace;
+                int availableHeight = heightSpecSize - verticalPadding - mRenderer.getShadowHeight() - mRenderer.getShadowTopSpace();
                 int measuredWidth = horizontalPadding;
                 if (availableHeight > 0) {
-                    measuredWidth += (availableHeight / DEFAULT_TIMES_OF_RADIUS);
+                    measuredWidth += (availableHeight / ShapeLoadingRenderer.DEFAULT_TIMES_OF_RADIUS);
                 }
 
                 measuredWidth = Math.min(measuredWidth, widthSpecSize);
@@ -345,9 +351,9 @@ public class ShapeLoadingView extends View {
             if (heightSpecMode == MeasureSpec.AT_MOST) {
                 //width is exact, height is wrap_content
                 int radius = (widthSpecSize - horizontalPadding) / 2;
-                int measuredHeight = verticalPadding + mShadowHeight + mShadowTopSpace;
+                int measuredHeight = verticalPadding + mRenderer.getShadowHeight() + mRenderer.getShadowTopSpace();
                 if (radius > 0) {
-                    measuredHeight += (radius * DEFAULT_TIMES_OF_RADIUS);
+                    measuredHeight += (radius * ShapeLoadingRenderer.DEFAULT_TIMES_OF_RADIUS);
                 }
                 measuredHeight = Math.min(measuredHeight, heightSpecSize);
 
@@ -361,81 +367,11 @@ public class ShapeLoadingView extends View {
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-
-        int width = super.getWidth();
-        if (width <= 0) {
-            return;
-        }
-
-        int height = super.getHeight();
-        if (height <= 0) {
-            return;
-        }
-
-        int paddingLeft = super.getPaddingLeft();
-        int paddingRight = super.getPaddingRight();
-        int paddingTop = super.getPaddingTop();
-        int paddingBottom = super.getPaddingBottom();
-
-        int horizontalPadding = paddingLeft + paddingRight;
-        int verticalPadding = paddingTop + paddingBottom;
-
-        int radius = (getWidth() - horizontalPadding) / 2;
-        if (radius <= 0) {
-            return;
-        }
-
-        float ratio;
-        if (mCurStep <= 180) {
-            //throw up
-            ratio = (1 - mDecelerateInterpolator.getInterpolation(mCurStep / 180f));
-        } else {
-            //throw down
-            ratio = mAccelerateInterpolator.getInterpolation(mCurStep / 180f - 1f);
-        }
-
-        float shadowLeft = paddingLeft + radius - (ratio + 0.5f) * radius * 0.5f;
-        float shadowRight = paddingLeft + radius + (ratio + 0.5f) * radius * 0.5f;
-        if (height < mShadowHeight) {
-            mRectFShadow.set(shadowLeft, 0, shadowRight, height);
-            canvas.drawRect(mRectFShadow, mPaintShadow);
-            postInvalidateDelayed(mInvalidDelayTime);
-            return;
-        } else {
-            mRectFShadow.set(shadowLeft, height - paddingBottom - mShadowHeight, shadowRight, height - paddingBottom);
-            canvas.drawRect(mRectFShadow, mPaintShadow);
-        }
-
-        int availableDrawHeight = height - verticalPadding - mShadowHeight - mShadowTopSpace - radius * 2;
-        if (availableDrawHeight <= 0) {
-            postInvalidateDelayed(mInvalidDelayTime);
-            return;
+        LoadingTrace.beginSection(LoadingTrace.SECTION_SHAPE_DRAW);
+        try {
+            mRenderer.draw(canvas);
+        } finally {
+            LoadingTrace.endSection();
         }
-
-        AbstractShapeDraw shapeDraw = mArrayShapeDraw[mCurDrawIndex];
-        shapeDraw.setRadius(radius);
-
-        final int saveCount = canvas.save();
-        float translateDy = ratio * availableDrawHeight + paddingTop;
-        canvas.translate(0, translateDy);
-        shapeDraw.draw(canvas, mPaintShape, ratio);
-        canvas.restoreToCount(saveCount);
-
-        mCurStep += 9;
-        if (mCurStep > 360) {
-            mCurStep = 0;
-            if (mCurDrawIndex == 0) {
-                mCurDrawIndex = mRunByOddIndex ? (mCurDrawIndex + 1) : (mCurDrawIndex + 2);
-            } else {
-                mCurDrawIndex += 2;
-            }
-
-            if (mCurDrawIndex >= mArrayShapeDraw.length) {
-                mRunByOddIndex = ((mCurDrawIndex & 0x1) == 0);
-                mCurDrawIndex = 0;
-            }
-        }
-
-        postInvalidateDelayed(mInvalidDelayTime);
     }
 }
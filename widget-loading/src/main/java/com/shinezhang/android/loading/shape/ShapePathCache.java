@@ -0,0 +1,87 @@
+package com.shinezhang.android.loading.shape;
+
+import android.graphics.Path;
+
+import com.shinezhang.android.loading.LoadingTrace;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Created by ShineZhang on 2017/3/14.
+ *
+ * <p>the process wide cache of the shape paths, the path only depends on the side count and the radius,
+ * so all the shapes with the same side count and radius share one path,
+ * include the two polygons with the opposite rotate direction.
+ * <br/>the cached path is shared, it should never be modified after created.
+ */
+/* package */ final class ShapePathCache {
+
+    /**
+     * the max count of the cached paths, the path evicted is still valid for the shapes using it
+     */
+    private static final int MAX_PATH_COUNT                         = 32;
+
+    private static final LinkedHashMap<Key, Path> sPathMap          = new LinkedHashMap<Key, Path>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Path> eldest) {
+            return size() > MAX_PATH_COUNT;
+        }
+    };
+
+    private ShapePathCache() {
+    }
+
+    /**
+     * get the shared path of the shape with the radius, the path is created by the shape if not cached
+     * @param shapeDraw the shape
+     * @param radius the shape radius
+     * @return the shared path, do not modify it
+     */
+    /* package */ static synchronized Path obtainPath(AbstractShapeDraw shapeDraw, float radius) {
+        Key key = new Key(shapeDraw.getSideCount(), radius);
+        Path path = sPathMap.get(key);
+        if (path == null) {
+            path = new Path();
+            LoadingTrace.beginSection(LoadingTrace.SECTION_SHAPE_PATH);
+            try {
+                shapeDraw.initPath(path, radius);
+            } finally {
+                LoadingTrace.endSection();
+            }
+            sPathMap.put(key, path);
+        }
+        return path;
+    }
+
+    private static final class Key {
+
+        private final int mSideCount;
+        private final float mRadius;
+
+        private Key(int sideCount, float radius) {
+            mSideCount = sideCount;
+            mRadius = radius;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return mSideCount == key.mSideCount && Float.compare(mRadius, key.mRadius) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mSideCount + Float.floatToIntBits(mRadius);
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.shinezhang.android.loading;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.shinezhang.android.BuildConfig;
+import com.shinezhang.android.R;
+import com.shinezhang.android.loading.shape.ShapeLoadingView;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by ShineZhang on 2017/3/18.
+ *
+ * <p>the loading views should not allocate in the steady state of the animation,
+ * each view is attached and driven through thousands of frames of the frame clock,
+ * the allocated bytes of the thread are counted from the clock to the draw.
+ * <br/>the canvas is a no-op one, and the allocations of the robolectric looper are measured
+ * by a bare frame callback, so only the allocations of the loading code are counted.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LoadingAllocationTest {
+
+    private static final int WARM_UP_FRAME_COUNT                    = 2000;
+    private static final int FRAME_COUNT                            = 5000;
+    private static final int SETTER_CALL_COUNT                      = 1000;
+    private static final long ASYNC_LOAD_TIMEOUT_MILLIS             = 10000L;
+    private static final long FRAME_INTERVAL_MILLIS                 = LoadingFrameClock.MIN_FRAME_INTERVAL_MILLIS;
+
+    private com.sun.management.ThreadMXBean mThreadMXBean;
+    private Context mContext;
+    private final Canvas mCanvas                                    = new NoOpCanvas();
+
+    @Before
+    public void setUp() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        mThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        Assume.assumeTrue(mThreadMXBean.isThreadAllocatedMemorySupported());
+        mThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @Test
+    public void shapeLoadingView_framesDoNotAllocate() {
+        ShapeLoadingView view = new ShapeLoadingView(mContext);
+        assertFramesDoNotAllocate(view, 150, 620);
+    }
+
+    @Test
+    public void shapeLoadingView_frameCacheDoesNotAllocate() {
+        ShapeLoadingView view = new ShapeLoadingView(mContext);
+        view.setFrameCacheEnabled(true);
+        assertFramesDoNotAllocate(view, 150, 620);
+    }
+
+    @Test
+    public void shapeLoadingView_vertexDrawDoesNotAllocate() {
+        ShapeLoadingView view = new ShapeLoadingView(mContext);
+        view.setVertexDrawEnabled(true);
+        assertFramesDoNotAllocate(view, 150, 620);
+    }
+
+    @Test
+    public void shapeLoadingView_lazyInitDoesNotAllocate() {
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.shape_lazy_init, "true")
+                .build();
+        ShapeLoadingView view = new ShapeLoadingView(mContext, attrs);
+        assertFramesDoNotAllocate(view, 150, 620);
+    }
+
+    @Test
+    public void doubleCircleLoadingView_framesDoNotAllocate() {
+        DoubleCircleLoadingView view = new DoubleCircleLoadingView(mContext);
+        assertFramesDoNotAllocate(view, 300, 120);
+    }
+
+    @Test
+    public void multiDotLoadingView_framesDoNotAllocate() {
+        MultiDotLoadingView view = new MultiDotLoadingView(mContext);
+        view.setDotCount(7);
+        view.setDotColors(0xffff5400, 0xffa9a9a9, 0xff3f51b5);
+        assertFramesDoNotAllocate(view, 350, 50);
+    }
+
+    @Test
+    public void rotateLoadingView_framesDoNotAllocate() {
+        RotateLoadingView view = new RotateLoadingView(mContext);
+        assertFramesDoNotAllocate(view, 200, 200);
+    }
+
+    @Test
+    public void rotateLoadingView_spriteFramesDoNotAllocate() {
+        RotateLoadingView view = new RotateLoadingView(mContext);
+        view.setSpriteEnabled(true);
+        assertFramesDoNotAllocate(view, 200, 200);
+    }
+
+    @Test
+    public void rotateLoadingView_asyncImageFramesDoNotAllocate() throws InterruptedException {
+        RotateLoadingView view = new RotateLoadingView(mContext);
+        view.setImageResourceAsync(R.drawable.ic_rotate_loading);
+        //the image is loaded at the draw size after the layout
+        layout(view, 200, 200);
+        waitForAsyncImage(R.drawable.ic_rotate_loading, 200, 200);
+        assertFramesDoNotAllocate(view, 200, 200);
+    }
+
+    @Test
+    public void rotateLoadingView_lazyInitDoesNotAllocate() {
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.rotate_lazy_init, "true")
+                .build();
+        RotateLoadingView view = new RotateLoadingView(mContext, attrs);
+        assertFramesDoNotAllocate(view, 200, 200);
+    }
+
+    @Test
+    public void rotateLoadingView_renderThreadRotationDoesNotAllocate() {
+        RotateLoadingView view = new RotateLoadingView(mContext);
+        view.setRenderThreadRotationEnabled(true);
+        assertFramesDoNotAllocate(view, 200, 200);
+    }
+
+    @Test
+    public void rotateLoadingView_setSameBitmapDoesNotAllocate() {
+        final RotateLoadingView view = new RotateLoadingView(mContext);
+        layout(view, 200, 200);
+        final Bitmap bitmap = Bitmap.createBitmap(64, 64, Bitmap.Config.ARGB_8888);
+        view.setImageBitmap(bitmap);
+
+        assertDoesNotAllocate(new Runnable() {
+
+            @Override
+            public void run() {
+                for (int i = 0; i < SETTER_CALL_COUNT; i++) {
+                    view.setImageBitmap(bitmap);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void shapeLoadingView_setSameConfigDoesNotAllocate() {
+        final ShapeLoadingView view = new ShapeLoadingView(mContext);
+        layout(view, 150, 620);
+
+        assertDoesNotAllocate(new Runnable() {
+
+            @Override
+            public void run() {
+                for (int i = 0; i < SETTER_CALL_COUNT; i++) {
+                    view.setPolygonSideCountAndRotateDegree(5, 360f);
+                    view.setInterpolatorFactor(1.2f);
+                }
+            }
+        });
+    }
+
+    private void assertFramesDoNotAllocate(final AbstractLoadingView view, int width, int height) {
+        attach(view, width, height);
+        try {
+            view.setFrameStatsEnabled(true);
+            assertTrue("the view should animate after attached", view.isAnimating());
+
+            //the caches, the tables and the lazy fields are created in the first frames
+            drawFrames(view, WARM_UP_FRAME_COUNT);
+
+            //the posting of a frame callback allocates in robolectric, the same looper is driven
+            //through the same frames with a bare callback to measure it
+            view.stop();
+            final HarnessFrameCallback harnessCallback = new HarnessFrameCallback();
+            harnessCallback.start();
+            drawFrames(null, WARM_UP_FRAME_COUNT);
+            Runnable harnessRunnable = new Runnable() {
+
+                @Override
+                public void run() {
+                    drawFrames(null, FRAME_COUNT);
+                }
+            };
+            long harnessBytes = measureAllocatedBytes(harnessRunnable);
+            harnessCallback.stop();
+
+            view.start();
+            drawFrames(view, WARM_UP_FRAME_COUNT);
+            long startInvalidationCount = view.getFrameStats().getSnapshot().getInvalidationCount();
+            long allocatedBytes = measureAllocatedBytes(new Runnable() {
+
+                @Override
+                public void run() {
+                    drawFrames(view, FRAME_COUNT);
+                }
+            }) - harnessBytes;
+            assertTrue("the frames are not dispatched by the frame clock",
+                    view.getFrameStats().getSnapshot().getInvalidationCount() > startInvalidationCount);
+            assertEquals("allocated bytes in the steady state", 0L, Math.max(allocatedBytes, 0L));
+        } finally {
+            detach(view);
+        }
+    }
+
+    /**
+     * attach the view to an activity, the frames are dispatched by the frame clock once the view is shown
+     */
+    private static void attach(View view, int width, int height) {
+        //the frame callbacks run one by one as the looper time advances
+        ShadowChoreographer.setPostFrameCallbackDelay((int) FRAME_INTERVAL_MILLIS);
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        activity.setContentView(view, new ViewGroup.LayoutParams(width, height));
+        ShadowLooper.pauseMainLooper();
+        layout(view, width, height);
+    }
+
+    private static void detach(View view) {
+        ((ViewGroup) view.getParent()).removeView(view);
+        //run the scheduled frame, so the clock is idle for the next test
+        ShadowLooper.idleMainLooper(FRAME_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * wait until the async image of the size is dispatched to the views in the main thread
+     * @param resId the image resource id
+     * @param width the draw width
+     * @param height the draw height
+     */
+    private void waitForAsyncImage(int resId, int width, int height) throws InterruptedException {
+        final boolean[] loaded = new boolean[1];
+        //the callbacks of the same image are called in order, this one is called after the view
+        LoadingBitmapCache.getInstance().loadBitmapAsync(mContext, resId, width, height, new LoadingBitmapCache.Callback() {
+
+            @Override
+            public void onBitmapLoaded(Bitmap bitmap) {
+                loaded[0] = true;
+            }
+        });
+
+        long deadline = System.currentTimeMillis() + ASYNC_LOAD_TIMEOUT_MILLIS;
+        while (!loaded[0]) {
+            assertTrue("the async image is not loaded in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10L);
+            ShadowLooper.idleMainLooper();
+        }
+    }
+
+    /**
+     * advance the main looper frame by frame, the frame clock dispatches the frames to the view
+     * @param view the view to draw after each frame, null to draw nothing
+     * @param frameCount the frame count
+     */
+    private void drawFrames(View view, int frameCount) {
+        for (int i = 0; i < frameCount; i++) {
+            ShadowLooper.idleMainLooper(FRAME_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            if (view != null) {
+                view.draw(mCanvas);
+            }
+        }
+    }
+
+    private void assertDoesNotAllocate(Runnable runnable) {
+        //the counter itself may allocate, it is measured by an empty run first
+        Runnable emptyRunnable = new Runnable() {
+
+            @Override
+            public void run() {
+            }
+        };
+        long counterBytes = measureAllocatedBytes(emptyRunnable);
+        long allocatedBytes = measureAllocatedBytes(runnable) - counterBytes;
+        assertEquals("allocated bytes in the steady state", 0L, Math.max(allocatedBytes, 0L));
+    }
+
+    private long measureAllocatedBytes(Runnable runnable) {
+        long threadId = Thread.currentThread().getId();
+        long startBytes = mThreadMXBean.getThreadAllocatedBytes(threadId);
+        runnable.run();
+        return mThreadMXBean.getThreadAllocatedBytes(threadId) - startBytes;
+    }
+
+    private static void layout(View view, int width, int height) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, width, height);
+    }
+
+    /**
+     * the callback posts itself on every frame, as the frame clock does when any loading is animating
+     */
+    private static final class HarnessFrameCallback implements Choreographer.FrameCallback {
+
+        private boolean mIsRunning;
+
+        void start() {
+            mIsRunning = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void stop() {
+            mIsRunning = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (mIsRunning) {
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+    }
+
+    /**
+     * the canvas draws nothing, the drawing of the shadow canvas allocates the records
+     */
+    private static final class NoOpCanvas extends Canvas {
+
+        private int mSaveCount = 1;
+
+        @Override
+        public int save() {
+            return mSaveCount++;
+        }
+
+        @Override
+        public void restore() {
+            mSaveCount = Math.max(mSaveCount - 1, 1);
+        }
+
+        @Override
+        public void restoreToCount(int saveCount) {
+            mSaveCount = saveCount;
+        }
+
+        @Override
+        public int getSaveCount() {
+            return mSaveCount;
+        }
+
+        @Override
+        public void translate(float dx, float dy) {
+        }
+
+        @Override
+        public void rotate(float degrees) {
+        }
+
+        @Override
+        public void scale(float sx, float sy) {
+        }
+
+        @Override
+        public void concat(Matrix matrix) {
+        }
+
+        @Override
+        public void drawPath(Path path, Paint paint) {
+        }
+
+        @Override
+        public void drawRect(RectF rect, Paint paint) {
+        }
+
+        @Override
+        public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        }
+
+        @Override
+        public void drawPoints(float[] pts, int offset, int count, Paint paint) {
+        }
+
+        @Override
+        public void drawVertices(VertexMode mode, int vertexCount, float[] verts, int vertOffset,
+                                 float[] texs, int texOffset, int[] colors, int colorOffset,
+                                 short[] indices, int indexOffset, int indexCount, Paint paint) {
+        }
+
+        @Override
+        public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        }
+    }
+}